@@ -0,0 +1,55 @@
+package com.example.tetris;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of tone synthesis for a music note and a line-clear effect, and of mixing one
+ * output chunk of music with overlapping effects, without an audio device.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioBenchmark {
+    private static final int CHUNK_SAMPLES = 512;
+
+    private final AudioMixer mixer = ProceduralAudio.createMixer();
+    private final byte[] chunk = new byte[CHUNK_SAMPLES];
+
+    @Setup(Level.Iteration)
+    public void startMusic() {
+        mixer.startMusic();
+    }
+
+    @Benchmark
+    public byte[] musicNote() {
+        return ProceduralAudio.synthesizeTone(329.63f, 220, 0.25f);
+    }
+
+    @Benchmark
+    public byte[] lineClearTone() {
+        return ProceduralAudio.synthesizeTone(523.25f, 180, 0.5f);
+    }
+
+    @Benchmark
+    public byte[] mixChunk() {
+        for (int i = 0; i < 3; ++i) {
+            mixer.trigger(i);
+        }
+        mixer.mix(chunk, CHUNK_SAMPLES);
+        return chunk;
+    }
+}
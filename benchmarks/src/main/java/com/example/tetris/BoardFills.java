@@ -0,0 +1,51 @@
+package com.example.tetris;
+
+import java.util.SplittableRandom;
+
+/**
+ * Board layouts shared by the benchmarks.
+ */
+final class BoardFills {
+    static final int WIDTH = GameEngine.BOARD_WIDTH;
+    static final int HEIGHT = GameEngine.BOARD_HEIGHT;
+
+    private BoardFills() {
+    }
+
+    /**
+     * A mid-game stack: the bottom rows are mostly filled with a few holes, thinning out upwards.
+     */
+    static byte[] midGame(long seed, int stackHeight) {
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[] cells = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < stackHeight; ++y) {
+            int hole = random.nextInt(WIDTH);
+            double density = 0.9 - 0.5 * y / stackHeight;
+            for (int x = 0; x < WIDTH; ++x) {
+                if (x != hole && random.nextDouble() < density) {
+                    cells[y * WIDTH + x] = (byte) (1 + random.nextInt(7));
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * A stack whose bottom {@code fullRows} rows are complete except for the rightmost column,
+     * with a ragged mid-game stack on top.
+     */
+    static byte[] well(long seed, int fullRows) {
+        byte[] cells = midGame(seed, fullRows + 6);
+        System.arraycopy(cells, 0, cells, fullRows * WIDTH, (HEIGHT - fullRows) * WIDTH);
+        for (int y = 0; y < fullRows; ++y) {
+            for (int x = 0; x < WIDTH - 1; ++x) {
+                cells[y * WIDTH + x] = (byte) (1 + (x + y) % 7);
+            }
+            cells[y * WIDTH + WIDTH - 1] = 0;
+        }
+        for (int y = fullRows; y < HEIGHT; ++y) {
+            cells[y * WIDTH + WIDTH - 1] = 0;
+        }
+        return cells;
+    }
+}
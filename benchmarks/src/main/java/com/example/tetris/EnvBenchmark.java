@@ -0,0 +1,54 @@
+package com.example.tetris;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-threaded throughput of the batched learning environment, in game steps per microsecond,
+ * with random actions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvBenchmark {
+    private static final int GAMES = 1024;
+
+    private final VectorEnv env = new VectorEnv(GAMES, "uniform", true, null);
+    private final int[] actionStream = new int[1 << 16];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7L);
+        for (int i = 0; i < actionStream.length; ++i) {
+            actionStream[i] = random.nextInt(VectorEnv.ACTIONS);
+        }
+        env.reset(1L);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public float stepBatch() {
+        int[] actions = env.actions();
+        for (int i = 0; i < GAMES; ++i) {
+            actions[i] = actionStream[next++ & (actionStream.length - 1)];
+        }
+        env.step();
+        return env.rewards()[0];
+    }
+}
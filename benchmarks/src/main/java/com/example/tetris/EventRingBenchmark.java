@@ -0,0 +1,50 @@
+package com.example.tetris;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of publishing a game event, and of publishing a batch of events and reading it back with
+ * three consumers, as the simulation thread and the status bar, audio and replay recorder do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventRingBenchmark {
+    private static final int BATCH = 16;
+
+    private final GameEventRing ring = new GameEventRing(1 << 12);
+    private final GameEventRing.Consumer[] consumers = {ring.consumer(), ring.consumer(), ring.consumer()};
+    private long tick;
+    private Blackhole blackhole;
+    private final GameEventRing.Handler handler = (type, tick, first, second, value, message) ->
+        blackhole.consume(first);
+
+    @Benchmark
+    public void publish() {
+        ring.publish(GameEventRing.MOVED, ++tick, GameInput.MOVE_LEFT.ordinal(), 0);
+    }
+
+    @Benchmark
+    public void publishAndConsumeBatch(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        for (int i = 0; i < BATCH; ++i) {
+            ring.publish(GameEventRing.MOVED, ++tick, GameInput.MOVE_LEFT.ordinal(), 0);
+        }
+        for (GameEventRing.Consumer consumer : consumers) {
+            consumer.poll(handler);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.tetris;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of the core rule operations: collision checks, line clears and hard drops. A drop
+ * changes its board, so each drop benchmark gets a batch of freshly prepared boards per call and
+ * drops on every one of them; the per-call setup and timing are spread over the whole batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameEngineBenchmark {
+    private static final Shape VERTICAL_LINE = Shape.of(Tetromino.LINE_SHAPE);
+    private static final long SEED = 42L;
+    private static final int BOARDS = 1024;
+
+    private final GameEngine engine = new GameEngine();
+    private Shape[] probes;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        Tetromino[] types = Tetromino.values();
+        probes = new Shape[(types.length - 1) * Shape.ROTATIONS];
+        for (int t = 1; t < types.length; ++t) {
+            for (int r = 0; r < Shape.ROTATIONS; ++r) {
+                probes[(t - 1) * Shape.ROTATIONS + r] = Shape.of(types[t], r);
+            }
+        }
+        engine.start(SEED);
+        engine.loadCells(BoardFills.midGame(42L, 8));
+    }
+
+    @Benchmark
+    public void collisionSweep(Blackhole blackhole) {
+        for (Shape probe : probes) {
+            for (int x = 0; x < BoardFills.WIDTH; ++x) {
+                for (int y = 0; y < BoardFills.HEIGHT; ++y) {
+                    blackhole.consume(engine.canPlace(probe, x, y));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int singleLineClear(SingleClear state) {
+        int lines = 0;
+        for (GameEngine engine : state.engines) {
+            engine.dropDown();
+            lines += engine.getLinesRemoved();
+        }
+        return lines;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int quadLineClear(QuadClear state) {
+        int lines = 0;
+        for (GameEngine engine : state.engines) {
+            engine.dropDown();
+            lines += engine.getLinesRemoved();
+        }
+        return lines;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int hardDropFromSpawn(SpawnDrop state) {
+        int rows = 0;
+        for (GameEngine engine : state.engines) {
+            engine.dropDown();
+            rows += engine.getCurY();
+        }
+        return rows;
+    }
+
+    /**
+     * {@link #BOARDS} games started with the same seed and reset to the same board before each call.
+     */
+    @State(Scope.Thread)
+    public abstract static class Boards {
+        final GameEngine[] engines = new GameEngine[BOARDS];
+        private byte[] cells;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() {
+            cells = cells();
+            for (int i = 0; i < BOARDS; ++i) {
+                engines[i] = new GameEngine();
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            for (GameEngine engine : engines) {
+                engine.start(SEED);
+                engine.loadCells(cells);
+                prepare(engine);
+            }
+        }
+
+        abstract byte[] cells();
+
+        void prepare(GameEngine engine) {
+        }
+    }
+
+    /**
+     * A vertical line above a one-row well.
+     */
+    public static class SingleClear extends Boards {
+        @Override
+        byte[] cells() {
+            return BoardFills.well(7L, 1);
+        }
+
+        @Override
+        void prepare(GameEngine engine) {
+            engine.tryMove(VERTICAL_LINE, BoardFills.WIDTH - 1, BoardFills.HEIGHT - 3);
+        }
+    }
+
+    /**
+     * A vertical line above a four-row well.
+     */
+    public static class QuadClear extends Boards {
+        @Override
+        byte[] cells() {
+            return BoardFills.well(7L, 4);
+        }
+
+        @Override
+        void prepare(GameEngine engine) {
+            engine.tryMove(VERTICAL_LINE, BoardFills.WIDTH - 1, BoardFills.HEIGHT - 3);
+        }
+    }
+
+    /**
+     * A freshly spawned piece over a mid-game stack.
+     */
+    public static class SpawnDrop extends Boards {
+        @Override
+        byte[] cells() {
+            return BoardFills.midGame(11L, 6);
+        }
+    }
+}
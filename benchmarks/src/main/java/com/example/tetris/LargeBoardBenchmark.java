@@ -0,0 +1,134 @@
+package com.example.tetris;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of line clears and of capturing and painting a frame on 64-column boards of growing
+ * height with the same stack; both should stay flat as the board grows. Like the drops of
+ * {@link GameEngineBenchmark}, each clear call works through a batch of freshly prepared boards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LargeBoardBenchmark {
+    private static final int WIDTH = GameEngine.MAX_WIDTH;
+    private static final int STACK_ROWS = 16;
+    private static final int VIEW_ROWS = 32;
+    private static final int SQUARE = 8;
+    private static final Shape VERTICAL_LINE = Shape.of(Tetromino.LINE_SHAPE);
+    private static final long SEED = 1L;
+    private static final int BOARDS = 64;
+
+    @Param({"22", "1024", "16384"})
+    public int rows;
+
+    private GameEngine engine;
+    private final FrameSnapshot frame = new FrameSnapshot();
+    private final BoardRenderer renderer = new BoardRenderer(new TileSprites());
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        engine = prepared(rows, stack(rows));
+        image = new BufferedImage(WIDTH * SQUARE, VIEW_ROWS * SQUARE, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        graphics.dispose();
+    }
+
+    /**
+     * {@link #BOARDS} boards of {@link #rows} rows, reset before each call.
+     */
+    @State(Scope.Thread)
+    public static class Clears {
+        final GameEngine[] engines = new GameEngine[BOARDS];
+        private byte[] cells;
+
+        @Setup(Level.Trial)
+        public void setUpTrial(LargeBoardBenchmark benchmark) {
+            cells = stack(benchmark.rows);
+            for (int i = 0; i < BOARDS; ++i) {
+                engines[i] = new GameEngine(GameListener.NONE, new UniformGenerator(SEED), WIDTH, benchmark.rows);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            for (GameEngine engine : engines) {
+                reset(engine, cells);
+            }
+        }
+    }
+
+    /**
+     * A ragged stack whose bottom four rows are complete except for the rightmost column, with a
+     * vertical line above that well.
+     */
+    private static GameEngine prepared(int rows, byte[] cells) {
+        GameEngine engine = new GameEngine(GameListener.NONE, new UniformGenerator(SEED), WIDTH, rows);
+        reset(engine, cells);
+        return engine;
+    }
+
+    private static void reset(GameEngine engine, byte[] cells) {
+        engine.start(SEED);
+        engine.loadCells(cells);
+        engine.tryMove(VERTICAL_LINE, WIDTH - 1, engine.getSpawnRow() + VERTICAL_LINE.minY());
+    }
+
+    private static byte[] stack(int rows) {
+        SplittableRandom random = new SplittableRandom(7);
+        byte[] cells = new byte[WIDTH * rows];
+        for (int y = 0; y < Math.min(STACK_ROWS, rows - 4); ++y) {
+            double density = y < 4 ? 1 : 0.9 - 0.5 * y / STACK_ROWS;
+            for (int x = 0; x < WIDTH - 1; ++x) {
+                if (random.nextDouble() < density) {
+                    cells[y * WIDTH + x] = (byte) (1 + random.nextInt(7));
+                }
+            }
+        }
+        return cells;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int quadLineClear(Clears state) {
+        int lines = 0;
+        for (GameEngine board : state.engines) {
+            board.dropDown();
+            lines += board.getLinesRemoved();
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public BufferedImage captureAndPaint() {
+        frame.capture(engine, VIEW_ROWS, 0, GameLoop.TICK_NANOS);
+        renderer.paint(graphics, frame, image.getWidth(), image.getHeight(), null);
+        return image;
+    }
+}
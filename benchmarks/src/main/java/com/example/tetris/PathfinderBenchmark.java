@@ -0,0 +1,47 @@
+package com.example.tetris;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of one full reachability search from the spawn position on a mid-game stack.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathfinderBenchmark {
+    @Param({"T_SHAPE", "LINE_SHAPE", "SQUARE_SHAPE"})
+    private Tetromino type;
+
+    private final Pathfinder pathfinder = new Pathfinder();
+    private final SearchBoard board = new SearchBoard();
+    private Shape piece;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GameEngine engine = new GameEngine();
+        engine.start();
+        engine.loadCells(BoardFills.midGame(42L, 8));
+        board.copyFrom(engine);
+        piece = Shape.of(type);
+    }
+
+    @Benchmark
+    public int searchFromSpawn() {
+        return pathfinder.search(board, piece, GameEngine.spawnX(piece), GameEngine.spawnY(piece));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.tetris;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of saving and restoring the engine state, and of a rewind seek that lands just before the
+ * next checkpoint and so replays a whole checkpoint interval.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RewindBenchmark {
+    private static final int PLAYED_TICKS = 20 * RewindBuffer.DEFAULT_CHECKPOINT_TICKS;
+
+    private final GameEngine engine = new GameEngine();
+    private final RewindBuffer rewind = new RewindBuffer(RewindBuffer.DEFAULT_CHECKPOINT_TICKS, 60);
+    private final ByteBuffer state = ByteBuffer.allocate(GameEngine.STATE_BYTES);
+    private long target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42L);
+        engine.start(42L);
+        rewind.record(engine);
+        while (engine.getTicks() < PLAYED_TICKS && engine.isStarted()) {
+            if (random.nextInt(4) == 0) {
+                GameInput input = GameInput.of(random.nextInt(GameInput.values().length - 1));
+                if (engine.apply(input)) {
+                    rewind.recordInput(engine.getTicks(), input);
+                }
+            }
+            engine.tick();
+            rewind.record(engine);
+        }
+        target = engine.getTicks() - 1;
+        rewind.seek(engine, target);
+        engine.saveState(state.clear());
+    }
+
+    @Benchmark
+    public ByteBuffer saveState() {
+        engine.saveState(state.clear());
+        return state;
+    }
+
+    @Benchmark
+    public long loadState() {
+        engine.loadState(state.flip());
+        return engine.getTicks();
+    }
+
+    @Benchmark
+    public long seekWorstCase() {
+        return rewind.seek(engine, target);
+    }
+}
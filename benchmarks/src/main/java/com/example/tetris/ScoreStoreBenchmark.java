@@ -0,0 +1,78 @@
+package com.example.tetris;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Leaderboard queries and inserts on a store holding a million results, full leaderboards for
+ * 100,000 seeds. A ranked insert appends to the log and pays its share of the compactions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoreStoreBenchmark {
+    private static final String MODE = "bag";
+    private static final int SEEDS = 100_000;
+
+    private Path path;
+    private ScoreStore store;
+    private final SplittableRandom random = new SplittableRandom(1);
+    private int lines = 1_000;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = Files.createTempFile("scores", ".log");
+        Files.delete(path);
+        store = new ScoreStore(path);
+        for (int place = 0; place < ScoreStore.DEFAULT_TOP; ++place) {
+            for (int seed = 0; seed < SEEDS; ++seed) {
+                store.add(MODE, seed, "player" + place, 100 + place, 300, 10_000);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public ScoreStore.Score best() {
+        return store.best(MODE, random.nextInt(SEEDS));
+    }
+
+    @Benchmark
+    public List<ScoreStore.Score> top() {
+        return store.top(MODE, random.nextInt(SEEDS));
+    }
+
+    @Benchmark
+    public boolean addUnranked() throws IOException {
+        return store.add(MODE, random.nextInt(SEEDS), "bot", 10, 30, 1_000);
+    }
+
+    @Benchmark
+    public boolean addRanked() throws IOException {
+        return store.add(MODE, random.nextInt(SEEDS), "bot", ++lines, 3_000, 100_000);
+    }
+}
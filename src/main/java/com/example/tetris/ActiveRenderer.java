@@ -0,0 +1,120 @@
+package com.example.tetris;
+
+import java.awt.Canvas;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Canvas that draws the board from its own render thread through a {@link BufferStrategy},
+ * at a fixed target frame rate, independently of Swing repaint coalescing.
+ * The falling piece is interpolated between logic ticks, and frame-to-frame intervals are
+ * recorded so the delivered frame pacing can be checked.
+ */
+public final class ActiveRenderer extends Canvas implements Runnable {
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final TripleBuffer<FrameSnapshot> frames;
+    private final BoardRenderer renderer;
+    private final Metrics metrics;
+    private final MetricsOverlay overlay;
+    private final long frameNanos;
+    private final boolean reportStats;
+    private final Distribution frameMicros = new Distribution();
+    private volatile boolean running;
+    private Thread thread;
+
+    ActiveRenderer(TripleBuffer<FrameSnapshot> frames, TileSprites sprites, Metrics metrics, int targetFps,
+            boolean reportStats) {
+        this.frames = frames;
+        this.renderer = new BoardRenderer(sprites);
+        this.metrics = metrics;
+        this.overlay = new MetricsOverlay(metrics);
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / targetFps;
+        this.reportStats = reportStats;
+        setIgnoreRepaint(true);
+        setFocusable(true);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        running = true;
+        thread = new Thread(this, "TetrisRenderThread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public void run() {
+        BufferStrategy strategy = getBufferStrategy();
+        long deadline = System.nanoTime();
+        long lastFrame = 0;
+        long lastReport = deadline;
+
+        while (running) {
+            render(strategy);
+
+            long now = System.nanoTime();
+            if (lastFrame != 0) {
+                frameMicros.record((now - lastFrame) / 1000);
+            }
+            lastFrame = now;
+            if (reportStats && now - lastReport >= REPORT_INTERVAL_NANOS) {
+                System.err.println("frame time (us): " + frameMicros);
+                frameMicros.reset();
+                lastReport = now;
+            }
+
+            deadline += frameNanos;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                deadline = System.nanoTime();
+            }
+        }
+    }
+
+    private void render(BufferStrategy strategy) {
+        FrameSnapshot frame = frames.front();
+        double alpha = frame.tickPeriodNanos == 0
+            ? 1.0
+            : Math.min(1.0, (double) (System.nanoTime() - frame.tickNanos) / frame.tickPeriodNanos);
+        long start = metrics.start();
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    g.setColor(getBackground());
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                    renderer.paintInterpolated(g, frame, getWidth(), getHeight(), alpha);
+                    overlay.paint(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        metrics.paint.stop(start);
+        metrics.startup.mark(StartupTimes.Milestone.FIRST_FRAME);
+    }
+}
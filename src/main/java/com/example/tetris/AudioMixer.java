@@ -0,0 +1,123 @@
+package com.example.tetris;
+
+import java.util.Arrays;
+
+/**
+ * Mixes a looping music track and up to {@link #MAX_VOICES} effect voices from pre-rendered
+ * 8-bit PCM clips into an output buffer. Confined to the audio thread; after the first chunk,
+ * mixing does not allocate.
+ */
+final class AudioMixer {
+    static final int MAX_VOICES = 8;
+
+    private static final int IDLE = -1;
+
+    private final byte[][] effects;
+    private final byte[] music;
+    private final int[] voiceClip = new int[MAX_VOICES];
+    private final int[] voicePosition = new int[MAX_VOICES];
+    private int[] accumulator = new int[0];
+    private int musicPosition;
+    private boolean musicPlaying;
+    private boolean musicPaused;
+
+    AudioMixer(byte[][] effects, byte[] music) {
+        this.effects = effects;
+        this.music = music;
+        Arrays.fill(voiceClip, IDLE);
+    }
+
+    /**
+     * Starts effect {@code clip} on a free voice, replacing the voice that has played longest when
+     * all are busy.
+     */
+    void trigger(int clip) {
+        int voice = 0;
+        for (int i = 0; i < MAX_VOICES; ++i) {
+            if (voiceClip[i] == IDLE) {
+                voice = i;
+                break;
+            }
+            if (voicePosition[i] > voicePosition[voice]) {
+                voice = i;
+            }
+        }
+        voiceClip[voice] = clip;
+        voicePosition[voice] = 0;
+    }
+
+    /**
+     * Starts the music from the beginning, or just unpauses it if it is already playing.
+     */
+    void startMusic() {
+        if (!musicPlaying) {
+            musicPlaying = true;
+            musicPosition = 0;
+        }
+        musicPaused = false;
+    }
+
+    void setMusicPaused(boolean paused) {
+        musicPaused = paused;
+    }
+
+    void stopMusic() {
+        musicPlaying = false;
+        musicPaused = false;
+    }
+
+    /**
+     * Returns true when nothing would be heard, so the caller can stop feeding the line.
+     */
+    boolean isSilent() {
+        if (musicPlaying && !musicPaused) {
+            return false;
+        }
+        for (int clip : voiceClip) {
+            if (clip != IDLE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mixes the next {@code samples} samples into {@code out}, clipping the sum to 8 bits.
+     */
+    void mix(byte[] out, int samples) {
+        if (accumulator.length < samples) {
+            accumulator = new int[samples];
+        }
+        int[] sum = accumulator;
+        if (musicPlaying && !musicPaused) {
+            for (int i = 0; i < samples; ++i) {
+                sum[i] = music[musicPosition];
+                if (++musicPosition == music.length) {
+                    musicPosition = 0;
+                }
+            }
+        } else {
+            Arrays.fill(sum, 0, samples, 0);
+        }
+
+        for (int v = 0; v < MAX_VOICES; ++v) {
+            if (voiceClip[v] == IDLE) {
+                continue;
+            }
+            byte[] clip = effects[voiceClip[v]];
+            int position = voicePosition[v];
+            int count = Math.min(samples, clip.length - position);
+            for (int i = 0; i < count; ++i) {
+                sum[i] += clip[position + i];
+            }
+            voicePosition[v] = position + count;
+            if (voicePosition[v] == clip.length) {
+                voiceClip[v] = IDLE;
+            }
+        }
+
+        for (int i = 0; i < samples; ++i) {
+            out[i] = (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, sum[i]));
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.tetris;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Bot that picks a placement for the falling piece by scoring every reachable resting position
+ * with a {@link Heuristic}, optionally looking ahead at the upcoming pieces.
+ * The falling piece's placements and their inputs come from a {@link Pathfinder}, so tucks and
+ * spins are found. Upcoming pieces are placed with a cheaper approximation: rotated at spawn, or
+ * after soft-dropping a row or two when there is no room to turn, then slid sideways and dropped.
+ * With a pool, the candidates of the falling piece are scored in parallel, each branch on its own
+ * {@link SearchBoard} copies, and {@link #chooseLater} runs the whole search off the caller's
+ * thread. With a {@link TranspositionTable}, the best score of a board and the
+ * pieces still to come is computed once and shared by every branch, thread and later search that
+ * reaches the same position. Instances are thread-safe.
+ */
+public final class AutoPlayer implements MovePolicy {
+    public static final int MAX_LOOKAHEAD = PieceGenerator.LOOKAHEAD;
+    private static final int MAX_CANDIDATES = Shape.ROTATIONS * GameEngine.BOARD_WIDTH;
+    private static final int CANDIDATES_PER_TASK = 4;
+    private static final double DEAD = -1e9;
+    private static final int[] TURNS = {0, 1, 2, -1};
+    private static final int MAX_DROPS_BEFORE_TURN = 2;
+    private static final ThreadLocal<Pathfinder> PATHFINDERS = ThreadLocal.withInitial(Pathfinder::new);
+
+    private final Heuristic heuristic;
+    private final int lookahead;
+    private final ForkJoinPool pool;
+    private final TranspositionTable cache;
+
+    public AutoPlayer(Heuristic heuristic, int lookahead, ForkJoinPool pool) {
+        this(heuristic, lookahead, pool, null);
+    }
+
+    /**
+     * @param lookahead number of upcoming pieces to search after the falling one
+     * @param pool pool for parallel search, or null to search on the calling thread
+     * @param cache table for lookahead results, or null to search without one
+     */
+    public AutoPlayer(Heuristic heuristic, int lookahead, ForkJoinPool pool, TranspositionTable cache) {
+        this.heuristic = heuristic;
+        this.lookahead = Math.max(0, Math.min(lookahead, MAX_LOOKAHEAD));
+        this.pool = pool;
+        this.cache = cache;
+    }
+
+    public TranspositionTable getCache() {
+        return cache;
+    }
+
+    /**
+     * Moves the falling piece to its chosen placement and drops it.
+     */
+    @Override
+    public void play(GameEngine engine, SplittableRandom random) {
+        Placement placement = choose(engine);
+        if (placement != null) {
+            placement.applyTo(engine);
+        }
+    }
+
+    /**
+     * Returns the best placement of the falling piece, or null if there is no piece to place or
+     * the board is not of the standard size the search works on.
+     */
+    public Placement choose(GameEngine engine) {
+        Position position = Position.of(engine, lookahead);
+        return position == null ? null : choose(position);
+    }
+
+    /**
+     * Reads the position of the falling piece on the calling thread and searches it on the pool,
+     * or at once without one, handing the placement {@link #choose} would return to {@code done}
+     * on the searching thread. The engine may move on meanwhile; the caller must check that the
+     * placement still applies.
+     */
+    public void chooseLater(GameEngine engine, Consumer<Placement> done) {
+        Position position = Position.of(engine, lookahead);
+        if (position == null || pool == null) {
+            done.accept(position == null ? null : choose(position));
+        } else {
+            pool.execute(() -> done.accept(choose(position)));
+        }
+    }
+
+    private Placement choose(Position position) {
+        Shape piece = position.piece;
+        Pathfinder pathfinder = PATHFINDERS.get();
+        int count = pathfinder.search(position.board, piece, position.x, position.y);
+        int[] candidates = new int[count];
+        for (int i = 0; i < count; ++i) {
+            candidates[i] = pack(pathfinder.getPiece(i).getRotation(), pathfinder.getX(i), pathfinder.getY(i));
+        }
+        if (count == 0) {
+            return new Placement(piece, position.x, position.board.landingY(piece, position.x, position.y), DEAD,
+                new GameInput[]{GameInput.HARD_DROP});
+        }
+        double[] scores = new double[count];
+        Search search = new Search(position.board, piece, candidates, position.upcoming, scores);
+        // Without lookahead a candidate costs one placement and one heuristic score, a fraction
+        // of a microsecond, so all of them take less time than handing tasks to other threads.
+        if (pool != null && lookahead > 0 && count > CANDIDATES_PER_TASK) {
+            pool.invoke(new SearchTask(search, 0, count));
+        } else {
+            search.evaluate(0, count);
+        }
+
+        int best = 0;
+        for (int i = 1; i < count; ++i) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        return new Placement(pathfinder.getPiece(best), pathfinder.getX(best), pathfinder.getY(best),
+            scores[best], pathfinder.getInputs(best));
+    }
+
+    /**
+     * Lists the resting positions of {@code piece} that rotate-and-slide reaches from
+     * ({@code x0}, {@code y0}) into {@code out} and returns how many there are.
+     */
+    static int enumerate(SearchBoard board, Shape piece, int x0, int y0, int[] out) {
+        int count = 0;
+        for (int turns : TURNS) {
+            if (turns != 0 && piece.getShape() == Tetromino.SQUARE_SHAPE) {
+                break;
+            }
+            int drops = 0;
+            while (!canRotate(board, piece, turns, x0, y0 - drops)) {
+                if (drops == MAX_DROPS_BEFORE_TURN || !board.canPlace(piece, x0, y0 - drops - 1)) {
+                    drops = -1;
+                    break;
+                }
+                ++drops;
+            }
+            if (drops < 0) {
+                continue;
+            }
+            Shape rotated = rotated(piece, turns);
+            int y = y0 - drops;
+            for (int x = x0; board.canPlace(rotated, x, y); --x) {
+                out[count++] = pack(rotated.getRotation(), x, board.landingY(rotated, x, y));
+            }
+            for (int x = x0 + 1; board.canPlace(rotated, x, y); ++x) {
+                out[count++] = pack(rotated.getRotation(), x, board.landingY(rotated, x, y));
+            }
+        }
+        return count;
+    }
+
+    private static boolean canRotate(SearchBoard board, Shape piece, int turns, int x, int y) {
+        if (turns < 0) {
+            return board.canPlace(piece.rotateLeft(), x, y);
+        }
+        Shape rotated = piece;
+        for (int i = 0; i < turns; ++i) {
+            rotated = rotated.rotateRight();
+            if (!board.canPlace(rotated, x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Shape rotated(Shape piece, int turns) {
+        return turns < 0 ? piece.rotateLeft() : Shape.of(piece.getShape(), piece.getRotation() + turns);
+    }
+
+    private static int pack(int rotation, int x, int y) {
+        return (rotation << 16) | ((x + 8) << 8) | (y + 8);
+    }
+
+    private static Shape shapeOf(Shape piece, int candidate) {
+        return Shape.of(piece.getShape(), candidate >>> 16);
+    }
+
+    private static int xOf(int candidate) {
+        return ((candidate >>> 8) & 0xFF) - 8;
+    }
+
+    private static int yOf(int candidate) {
+        return (candidate & 0xFF) - 8;
+    }
+
+    /**
+     * What the search needs of an engine, copied so that it can run on another thread.
+     */
+    private static final class Position {
+        final SearchBoard board = new SearchBoard();
+        final Shape piece;
+        final int x;
+        final int y;
+        final Tetromino[] upcoming;
+
+        private Position(GameEngine engine, int lookahead) {
+            board.copyFrom(engine);
+            piece = engine.getCurrentPiece();
+            x = engine.getCurX();
+            y = engine.getCurY();
+            upcoming = new Tetromino[lookahead];
+            for (int i = 0; i < lookahead; ++i) {
+                upcoming[i] = engine.getGenerator().peek(i);
+            }
+        }
+
+        /**
+         * Returns null if there is no piece to place or the board is not of the standard size.
+         */
+        static Position of(GameEngine engine, int lookahead) {
+            Shape piece = engine.getCurrentPiece();
+            if (!engine.isStarted() || piece.getShape() == Tetromino.NO_SHAPE || !engine.isStandardSize()) {
+                return null;
+            }
+            return new Position(engine, lookahead);
+        }
+    }
+
+    /**
+     * Scores a range of top-level candidates; each range gets its own scratch boards.
+     * Lines cleared above a position are scored by the caller, so the best score below it depends
+     * only on its board and the remaining pieces and can be cached under their hash.
+     */
+    private final class Search {
+        private final SearchBoard board;
+        private final Shape piece;
+        private final int[] candidates;
+        private final Tetromino[] upcoming;
+        private final double[] scores;
+        /**
+         * Zobrist keys of {@code upcoming[depth..]}, indexed by depth.
+         */
+        private final long[] sequenceKeys;
+
+        Search(SearchBoard board, Shape piece, int[] candidates, Tetromino[] upcoming, double[] scores) {
+            this.board = board;
+            this.piece = piece;
+            this.candidates = candidates;
+            this.upcoming = upcoming;
+            this.scores = scores;
+            sequenceKeys = new long[upcoming.length];
+            for (int depth = 0; depth < upcoming.length; ++depth) {
+                for (int k = depth; k < upcoming.length; ++k) {
+                    sequenceKeys[depth] ^= Zobrist.piece(k - depth, upcoming[k]);
+                }
+            }
+        }
+
+        void evaluate(int from, int to) {
+            SearchBoard[] boards = new SearchBoard[lookahead + 1];
+            for (int i = 0; i < boards.length; ++i) {
+                boards[i] = new SearchBoard();
+            }
+            int[][] next = new int[lookahead][MAX_CANDIDATES];
+            for (int i = from; i < to; ++i) {
+                int candidate = candidates[i];
+                SearchBoard child = boards[0];
+                child.copyFrom(board);
+                int lines = child.place(shapeOf(piece, candidate), xOf(candidate), yOf(candidate));
+                scores[i] = lookahead == 0
+                    ? heuristic.score(child, lines)
+                    : heuristic.scoreLines(lines) + best(child, 0, boards, next);
+            }
+        }
+
+        /**
+         * Best score reachable by placing {@code upcoming[depth]} and the pieces after it.
+         */
+        private double best(SearchBoard parent, int depth, SearchBoard[] boards, int[][] next) {
+            long key = parent.getHash() ^ sequenceKeys[depth];
+            if (cache != null) {
+                double cached = cache.get(key, lookahead - depth);
+                if (!Double.isNaN(cached)) {
+                    return cached;
+                }
+            }
+            double best = search(parent, depth, boards, next);
+            if (cache != null) {
+                cache.put(key, lookahead - depth, best);
+            }
+            return best;
+        }
+
+        private double search(SearchBoard parent, int depth, SearchBoard[] boards, int[][] next) {
+            Shape spawned = Shape.of(upcoming[depth]);
+            int x0 = GameEngine.spawnX(spawned);
+            int y0 = GameEngine.spawnY(spawned);
+            if (!parent.canPlace(spawned, x0, y0)) {
+                return DEAD;
+            }
+            int[] candidates = next[depth];
+            int count = enumerate(parent, spawned, x0, y0, candidates);
+            double best = DEAD;
+            for (int i = 0; i < count; ++i) {
+                int candidate = candidates[i];
+                SearchBoard child = boards[depth + 1];
+                child.copyFrom(parent);
+                int cleared = child.place(shapeOf(spawned, candidate), xOf(candidate), yOf(candidate));
+                double score = depth + 1 == lookahead
+                    ? heuristic.score(child, cleared)
+                    : heuristic.scoreLines(cleared) + best(child, depth + 1, boards, next);
+                best = Math.max(best, score);
+            }
+            return best;
+        }
+    }
+
+    private static final class SearchTask extends RecursiveAction {
+        private final Search search;
+        private final int from;
+        private final int to;
+
+        SearchTask(Search search, int from, int to) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CANDIDATES_PER_TASK) {
+                search.evaluate(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SearchTask(search, from, mid), new SearchTask(search, mid, to));
+        }
+    }
+}
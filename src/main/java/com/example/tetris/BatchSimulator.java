@@ -0,0 +1,192 @@
+package com.example.tetris;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Command-line batch mode that plays many complete games headlessly across all cores.
+ * Each game gets its own seed, derived from the base seed and its index, so any single game
+ * of a batch can be reproduced on its own. With a {@link ScoreStore} every game is also ranked
+ * against earlier results on its seed, so policies can be compared on the same piece sequences.
+ */
+public final class BatchSimulator {
+    private static final int GAMES_PER_TASK = 64;
+
+    private final MovePolicy policy;
+    private final String generator;
+    private final int maxPieces;
+    private ScoreStore scores;
+    private String player;
+
+    public BatchSimulator(MovePolicy policy, String generator, int maxPieces) {
+        this.policy = policy;
+        this.generator = generator;
+        this.maxPieces = maxPieces;
+    }
+
+    /**
+     * Adds the result of every game to {@code scores} under {@code player}, in the generator's mode.
+     */
+    public void setScores(ScoreStore scores, String player) {
+        this.scores = scores;
+        this.player = player;
+    }
+
+    /**
+     * Aggregated results of a batch.
+     */
+    public static final class Result {
+        private final Distribution lines = new Distribution();
+        private final Distribution pieces = new Distribution();
+        private final Distribution ticks = new Distribution();
+
+        void record(GameEngine engine) {
+            lines.record(engine.getLinesRemoved());
+            pieces.record(engine.getPiecesPlaced());
+            ticks.record(engine.getTicks());
+        }
+
+        Result merge(Result other) {
+            lines.merge(other.lines);
+            pieces.merge(other.pieces);
+            ticks.merge(other.ticks);
+            return this;
+        }
+
+        public Distribution lines() {
+            return lines;
+        }
+
+        public Distribution pieces() {
+            return pieces;
+        }
+
+        public Distribution ticks() {
+            return ticks;
+        }
+    }
+
+    public Result run(long baseSeed, int games, ForkJoinPool pool) {
+        return pool.invoke(new BatchTask(baseSeed, 0, games));
+    }
+
+    public static long gameSeed(long baseSeed, int index) {
+        return new SplittableRandom(baseSeed + index * 0x9E3779B97F4A7C15L).nextLong();
+    }
+
+    void playGame(long seed, Result result) {
+        SplittableRandom random = new SplittableRandom(seed);
+        GameEngine engine = new GameEngine(GameListener.NONE, PieceGenerator.forName(generator, seed));
+        engine.start();
+        while (engine.isStarted() && engine.getPiecesPlaced() < maxPieces) {
+            if (engine.getCurrentPiece().getShape() == Tetromino.NO_SHAPE) {
+                engine.tick();
+                continue;
+            }
+            int placed = engine.getPiecesPlaced();
+            policy.play(engine, random);
+            while (engine.isStarted() && engine.getPiecesPlaced() == placed) {
+                engine.tick();
+            }
+        }
+        result.record(engine);
+        if (scores != null) {
+            try {
+                scores.add(generator, seed, player, engine.getLinesRemoved(), engine.getPiecesPlaced(),
+                    engine.getTicks());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private final class BatchTask extends RecursiveTask<Result> {
+        private final long baseSeed;
+        private final int from;
+        private final int to;
+
+        BatchTask(long baseSeed, int from, int to) {
+            this.baseSeed = baseSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                Result result = new Result();
+                for (int i = from; i < to; ++i) {
+                    playGame(gameSeed(baseSeed, i), result);
+                }
+                return result;
+            }
+            int mid = (from + to) >>> 1;
+            BatchTask left = new BatchTask(baseSeed, from, mid);
+            left.fork();
+            Result right = new BatchTask(baseSeed, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = 100_000;
+        long seed = 1L;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxPieces = 10_000;
+        String policyName = "random";
+        String generatorName = "uniform";
+        String scoresPath = null;
+        String playerName = null;
+
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--max-pieces" -> maxPieces = Integer.parseInt(args[++i]);
+                case "--policy" -> policyName = args[++i];
+                case "--generator" -> generatorName = args[++i];
+                case "--scores" -> scoresPath = args[++i];
+                case "--player" -> playerName = args[++i];
+                default -> {
+                    System.err.println("Usage: BatchSimulator [--games N] [--seed S] [--threads T]"
+                        + " [--max-pieces M] [--policy random|gravity|ai|ai:N] [--generator uniform|bag]"
+                        + " [--scores FILE [--player NAME]]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        MovePolicy policy = MovePolicy.forName(policyName);
+        BatchSimulator simulator = new BatchSimulator(policy, generatorName, maxPieces);
+        ScoreStore scores = scoresPath == null ? null : new ScoreStore(Path.of(scoresPath));
+        if (scores != null) {
+            simulator.setScores(scores, playerName != null ? playerName : policyName);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        Result result = simulator.run(seed, games, pool);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        if (scores != null) {
+            scores.close();
+        }
+
+        System.out.printf("%d games, %d threads, policy %s, generator %s, %.2f s, %.0f games/s%n",
+            games, threads, policyName, generatorName, seconds, games / seconds);
+        System.out.println("lines cleared:  " + result.lines());
+        System.out.println("pieces placed:  " + result.pieces());
+        System.out.println("game length:    " + result.ticks() + " ticks");
+        if (policy instanceof AutoPlayer player && player.getCache() != null) {
+            System.out.println("search cache:   " + player.getCache());
+        }
+        if (scores != null) {
+            System.out.printf("high scores:    %d results on %d leaderboards, %d log records, %d compactions%n",
+                scores.size(), scores.getLeaderboards(), scores.getRecords(), scores.getCompactions());
+        }
+    }
+}
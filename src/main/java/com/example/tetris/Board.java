@@ -1,319 +1,640 @@
 package com.example.tetris;
 
-import java.awt.Color;
-import java.awt.Dimension;
+import java.awt.BorderLayout;
 import java.awt.Graphics;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.Rectangle;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import javax.swing.JLabel;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.nio.file.Path;
 import javax.swing.JPanel;
-import javax.swing.Timer;
 
 /**
- * Board panel that holds game state and painting logic.
+ * Board panel that renders a {@link GameEngine} and forwards player input to it.
+ * The engine runs on the {@link GameLoop} simulation thread: movement keys go through the
+ * {@link InputProcessor}, pause and restart are posted to it as commands, and each tick publishes
+ * a {@link FrameSnapshot} that painting reads without locking. Game events go out through a
+ * {@link GameEventRing} that the status bar, preview, audio, replay and score recorders and metrics
+ * each read at their own pace, so the simulation never waits for any of them.
+ *
+ * <p>The board size is set with {@code -Dtetris.columns} and {@code -Dtetris.rows}. A board taller
+ * than {@code -Dtetris.viewRows} (32 by default) is drawn as a window of that many rows that
+ * follows the top of the stack. The bot, replays and versus mode need the standard size.
  */
-public final class Board extends JPanel implements ActionListener {
-    private static final int BOARD_WIDTH = 10;
-    private static final int BOARD_HEIGHT = 22;
-    private static final int PERIOD_MS = 400;
-
-    private final Timer timer;
-    private boolean isFallingFinished = false;
-    private boolean isStarted = false;
-    private boolean isPaused = false;
-    private int numLinesRemoved = 0;
-    private int curX = 0;
-    private int curY = 0;
-    private Shape curPiece;
-    private Shape nextPiece;
-    private Tetromino[] board;
-    private final JLabel statusBar;
-    private final NextPiecePanel nextPiecePanel;
-    private final ProceduralAudio audio;
-
-    public Board(JLabel statusBar, NextPiecePanel nextPiecePanel, ProceduralAudio audio) {
-        this.statusBar = statusBar;
-        this.nextPiecePanel = nextPiecePanel;
-        this.audio = audio;
+public final class Board extends JPanel implements GameListener {
+    private static final int DEFAULT_VIEW_ROWS = 32;
+    private static final int PREVIEW_COUNT = 3;
+    private static final long OVERLAY_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int REWIND_TICKS = GameEngine.TICKS_PER_SECOND;
+    private static final int REWIND_MAX_SECONDS = 300;
+    private static final int REWIND_MAX_BYTES = 16 << 20;
+    private static final int EVENT_CAPACITY = 1 << 12;
+
+    private final GameEngine engine;
+    private final int viewRows;
+    private int paintedViewBottom;
+    private final InputProcessor input;
+    private final AutoPlayer autoPlayer;
+    private boolean autoplay;
+    /**
+     * Counts the bot's searches, so that only the result of the latest one is played.
+     */
+    private long autoplaySearch;
+    private Shape autoplayPiece;
+    private int autoplayX;
+    private int autoplayY;
+    private final GameLoop loop;
+    private final GameEventRing events = new GameEventRing(EVENT_CAPACITY);
+    private final Tetromino[] upcoming = new Tetromino[PREVIEW_COUNT];
+    private long seed;
+    private final BoardRenderer renderer;
+    private final Metrics metrics;
+    private final MetricsOverlay overlay;
+    private long overlayRefreshNanos;
+    private final TripleBuffer<FrameSnapshot> frames = new TripleBuffer<>(FrameSnapshot::new);
+    private ActiveRenderer activeRenderer;
+    private final Rectangle paintedPiece = new Rectangle();
+    private final Rectangle piece = new Rectangle();
+    private final Rectangle dirty = new Rectangle();
+    private ReplayRecorder replay;
+    private ScoreRecorder scores;
+    private final RewindBuffer rewind;
+    private final Path snapshotPath;
+    private boolean rewinding;
+    private boolean applying;
+    private boolean overAfterInput;
+    private boolean playable;
+    private final VersusMatch versus;
+
+    /**
+     * @param opponentPanel view of the other player's board, or null outside versus mode
+     */
+    public Board(OpponentPanel opponentPanel, TileSprites sprites, Metrics metrics) {
+        this.renderer = new BoardRenderer(sprites);
+        this.metrics = metrics;
+        this.overlay = new MetricsOverlay(metrics);
         setFocusable(true);
-        curPiece = new Shape();
-        timer = new Timer(PERIOD_MS, this);
-        timer.start();
+        engine = new GameEngine(this,
+            PieceGenerator.forName(System.getProperty("tetris.generator", "uniform"), System.nanoTime()),
+            Integer.getInteger("tetris.columns", GameEngine.BOARD_WIDTH),
+            Integer.getInteger("tetris.rows", GameEngine.BOARD_HEIGHT));
+        viewRows = Math.max(1, Math.min(engine.getHeight(), Integer.getInteger("tetris.viewRows", DEFAULT_VIEW_ROWS)));
+        input = new InputProcessor(this::applyInput,
+            Integer.getInteger("tetris.das", InputProcessor.DEFAULT_DAS_TICKS),
+            Integer.getInteger("tetris.arr", InputProcessor.DEFAULT_ARR_TICKS),
+            Boolean.getBoolean("tetris.inputStats"));
+        String weights = System.getProperty("tetris.aiWeights");
+        int lookahead = Integer.getInteger("tetris.aiLookahead", 1);
+        autoPlayer = new AutoPlayer(weights == null ? Heuristic.DEFAULT : Heuristic.parse(weights),
+            lookahead, ForkJoinPool.commonPool(), lookahead > 0 ? new TranspositionTable(
+                Integer.getInteger("tetris.aiCacheMb", TranspositionTable.DEFAULT_MEGABYTES)) : null);
+        autoplay = Boolean.getBoolean("tetris.autoplay");
+        metrics.setSearchCache(autoPlayer.getCache());
+        engine.setMetrics(metrics);
+        rewind = new RewindBuffer(RewindBuffer.DEFAULT_CHECKPOINT_TICKS,
+            Integer.getInteger("tetris.rewindSeconds", defaultRewindSeconds(engine.getStateBytes())),
+            engine.getStateBytes());
+        snapshotPath = Path.of(System.getProperty("tetris.snapshot", "tetris.snapshot"));
+        loop = new GameLoop(engine, input, this::afterTick);
+        loop.setMetrics(metrics);
+
+        TAdapter adapter = new TAdapter();
+        addKeyListener(adapter);
+        if ("active".equals(System.getProperty("tetris.render"))) {
+            enableActiveRendering(adapter);
+        }
+        versus = opponentPanel == null ? null : openVersus(opponentPanel);
+        if (versus == null) {
+            openReplay(System.getProperty("tetris.replay"));
+            openScores(System.getProperty("tetris.scores", "tetris.scores"));
+        }
+        if (replay != null || scores != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::closeRecorders, "TetrisRecordersClose"));
+        }
+        loop.start();
+    }
+
+    /**
+     * Keeps the rewind history of a large board within {@link #REWIND_MAX_BYTES}.
+     */
+    private static int defaultRewindSeconds(int stateBytes) {
+        int checkpointsPerSecond = GameEngine.TICKS_PER_SECOND / RewindBuffer.DEFAULT_CHECKPOINT_TICKS;
+        return Math.max(1, Math.min(REWIND_MAX_SECONDS, REWIND_MAX_BYTES / stateBytes / checkpointsPerSecond));
+    }
+
+    int getColumns() {
+        return engine.getWidth();
+    }
+
+    int getViewRows() {
+        return viewRows;
+    }
+
+    private VersusMatch openVersus(OpponentPanel opponentPanel) {
+        if (!engine.isStandardSize()) {
+            System.err.println("Versus mode disabled: it needs the standard board size");
+            return null;
+        }
+        try {
+            return new VersusMatch(System.getProperty("tetris.versus"), engine, opponentPanel, this::startGame,
+                this::setStatus);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Versus mode disabled: " + e.getMessage());
+            return null;
+        }
+    }
 
-        board = new Tetromino[BOARD_WIDTH * BOARD_HEIGHT];
-        clearBoard();
-        addKeyListener(new TAdapter());
+    /**
+     * Switches to active rendering: a child canvas redraws the board from its own thread at
+     * {@code -Dtetris.fps} (144 by default) and receives the keyboard input. The render thread
+     * gets its own sprite cache because {@link TileSprites} is confined to a single thread.
+     */
+    private void enableActiveRendering(TAdapter adapter) {
+        activeRenderer = new ActiveRenderer(frames, new TileSprites(), metrics, Integer.getInteger("tetris.fps", 144),
+            Boolean.getBoolean("tetris.frameStats"));
+        activeRenderer.addKeyListener(adapter);
+        setLayout(new BorderLayout());
+        add(activeRenderer, BorderLayout.CENTER);
+    }
+
+    /**
+     * Events of this board's games; consumers should be added before {@link #start()}.
+     */
+    GameEventRing getEvents() {
+        return events;
     }
 
     @Override
-    public void actionPerformed(ActionEvent e) {
-        if (isFallingFinished) {
-            isFallingFinished = false;
-            newPiece();
-        } else {
-            oneLineDown();
+    public boolean requestFocusInWindow() {
+        if (activeRenderer != null) {
+            return activeRenderer.requestFocusInWindow();
+        }
+        return super.requestFocusInWindow();
+    }
+
+    /**
+     * Runs on the simulation thread after every tick.
+     */
+    private void afterTick() {
+        if (!playable && engine.isStarted()) {
+            playable = true;
+            metrics.startup.mark(StartupTimes.Milestone.FIRST_TICK);
+        }
+        rewind.record(engine);
+        if (versus != null) {
+            versus.afterTick(loop.getTickNanos());
+        }
+        frames.back().capture(engine, viewRows, loop.getTickNanos(), GameLoop.TICK_NANOS);
+        frames.publish();
+        repaintPiece();
+        if (activeRenderer == null && metrics.isOverlayVisible()
+                && loop.getTickNanos() - overlayRefreshNanos >= OVERLAY_REFRESH_NANOS) {
+            overlayRefreshNanos = loop.getTickNanos();
+            repaint(0, 0, MetricsOverlay.WIDTH, getHeight());
         }
     }
 
     private int squareWidth() {
-        return getWidth() / BOARD_WIDTH;
+        return getWidth() / engine.getWidth();
     }
 
     private int squareHeight() {
-        return getHeight() / BOARD_HEIGHT;
+        return getHeight() / viewRows;
     }
 
-    private Tetromino shapeAt(int x, int y) {
-        return board[y * BOARD_WIDTH + x];
+    private int boardTop() {
+        return getHeight() - viewRows * squareHeight();
     }
 
-    public void start() {
-        if (isPaused) {
+    /**
+     * Board row shown on the first screen row.
+     */
+    private int viewTop() {
+        return FrameSnapshot.viewBottom(engine, viewRows) + viewRows - 1;
+    }
+
+    /**
+     * Requests a repaint of the previous and current footprints of the falling piece and its
+     * ghost, if they moved, or of the whole board if the window scrolled.
+     */
+    private void repaintPiece() {
+        int viewBottom = FrameSnapshot.viewBottom(engine, viewRows);
+        if (viewBottom != paintedViewBottom) {
+            paintedViewBottom = viewBottom;
+            pieceBounds(paintedPiece);
+            repaint();
+            return;
+        }
+        pieceBounds(piece);
+        if (piece.equals(paintedPiece)) {
             return;
         }
+        if (!paintedPiece.isEmpty()) {
+            repaint(paintedPiece);
+        }
+        paintedPiece.setBounds(piece);
+        if (!paintedPiece.isEmpty()) {
+            repaint(paintedPiece);
+        }
+    }
 
-        isStarted = true;
-        isFallingFinished = false;
-        numLinesRemoved = 0;
-        isPaused = false;
-        clearBoard();
-        curPiece.setShape(Tetromino.NO_SHAPE);
+    private void pieceBounds(Rectangle bounds) {
+        Shape piece = engine.getCurrentPiece();
+        if (piece.getShape() == Tetromino.NO_SHAPE) {
+            bounds.setBounds(0, 0, 0, 0);
+            return;
+        }
+        int left = engine.getCurX() + piece.minX();
+        int top = engine.getCurY() - piece.minY();
+        int bottom = engine.getGhostY() - piece.maxY();
+        bounds.setBounds(left * squareWidth(), boardTop() + (viewTop() - top) * squareHeight(),
+            (piece.maxX() - piece.minX() + 1) * squareWidth(), (top - bottom + 1) * squareHeight());
+    }
 
-        nextPiece = new Shape();
-        nextPiece.setRandomShape();
-        updatePreview();
+    public void start() {
+        loop.post(this::startGame);
+    }
 
-        newPiece();
-        timer.start();
-        audio.startMusic();
-        statusBar.setText(String.format("Счёт: %d", numLinesRemoved));
+    private void startGame() {
+        if (loop.isPaused()) {
+            return;
+        }
+
+        if (versus != null && !versus.isConnected()) {
+            setStatus("Ожидание соперника…");
+            return;
+        }
+
+        if (engine.isStarted()) {
+            publishEnd(GameEventRing.ENDED);
+        }
+        seed = System.nanoTime();
+        engine.start(seed);
+        rewind.clear();
+        rewind.record(engine);
+        publishStarted();
+        if (versus != null) {
+            versus.started(seed);
+        }
+        repaint();
     }
 
     private void pause() {
-        if (!isStarted) {
+        if (!engine.isStarted() || versus != null) {
             return;
         }
 
-        isPaused = !isPaused;
-        if (isPaused) {
-            timer.stop();
-            statusBar.setText("Пауза");
-            audio.pauseMusic();
-        } else {
-            timer.start();
-            statusBar.setText(String.format("Счёт: %d", numLinesRemoved));
-            audio.resumeMusic();
-        }
+        loop.setPaused(!loop.isPaused());
+        events.publish(GameEventRing.PAUSED, engine.getTicks(), loop.isPaused() ? 1 : 0, engine.getLinesRemoved());
         repaint();
     }
 
+    private void setStatus(String text) {
+        events.publishMessage(text);
+    }
+
+    private void publishStarted() {
+        events.publish(GameEventRing.STARTED, engine.getTicks(), engine.getLinesRemoved(), 0, seed,
+            engine.getGenerator().name());
+    }
+
+    /**
+     * Publishes the end of the game with what a replay needs to verify it:
+     * {@link GameEventRing#GAME_OVER} when it is over, {@link GameEventRing#ENDED} when the player
+     * leaves it.
+     */
+    private void publishEnd(int type) {
+        events.publish(type, engine.getTicks(), engine.getLinesRemoved(), engine.getPiecesPlaced(),
+            engine.stateHash(), null);
+    }
+
     @Override
     public void paint(Graphics g) {
         super.paint(g);
-
-        Dimension size = getSize();
-        int boardTop = (int) size.getHeight() - BOARD_HEIGHT * squareHeight();
-
-        for (int i = 0; i < BOARD_HEIGHT; ++i) {
-            for (int j = 0; j < BOARD_WIDTH; ++j) {
-                Tetromino shape = shapeAt(j, BOARD_HEIGHT - i - 1);
-                if (shape != Tetromino.NO_SHAPE) {
-                    drawSquare(g, j * squareWidth(), boardTop + i * squareHeight(), shape);
-                }
-            }
+        if (activeRenderer == null) {
+            long start = metrics.start();
+            renderer.paint(g, frames.front(), getWidth(), getHeight(), g.getClipBounds());
+            overlay.paint(g);
+            metrics.paint.stop(start);
+            metrics.startup.mark(StartupTimes.Milestone.FIRST_FRAME);
         }
+    }
 
-        if (curPiece.getShape() != Tetromino.NO_SHAPE) {
-            for (int i = 0; i < 4; ++i) {
-                int x = curX + curPiece.x(i);
-                int y = curY - curPiece.y(i);
-                drawSquare(g, x * squareWidth(), boardTop + (BOARD_HEIGHT - y - 1) * squareHeight(), curPiece.getShape());
-            }
+    /**
+     * Practice rewind: puts the game back {@link #REWIND_TICKS} ticks, also after it is over.
+     * Not available while a replay is being recorded, since a replay holds one linear game, nor in
+     * versus mode.
+     */
+    private void rewind() {
+        if (isRecordingReplay() || versus != null || loop.isPaused()) {
+            return;
+        }
+        boolean over = !engine.isStarted();
+        rewinding = true;
+        long tick = rewind.seek(engine, engine.getTicks() - REWIND_TICKS);
+        rewinding = false;
+        if (tick >= 0) {
+            resumeAfterJump(over);
         }
     }
 
-    private void dropDown() {
-        int newY = curY;
-        while (newY > 0) {
-            if (!tryMove(curPiece, curX, newY - 1)) {
-                break;
-            }
-            --newY;
+    /**
+     * Saves the game to the snapshot file, or loads it back into this game.
+     */
+    private void saveSnapshot() {
+        try {
+            GameSnapshot.capture(engine).write(snapshotPath);
+            setStatus("Сохранено: " + snapshotPath);
+        } catch (IOException e) {
+            setStatus("Не удалось сохранить: " + e.getMessage());
         }
-        pieceDropped();
     }
 
-    private void oneLineDown() {
-        if (!tryMove(curPiece, curX, curY - 1)) {
-            pieceDropped();
+    private void loadSnapshot() {
+        if (isRecordingReplay() || versus != null || loop.isPaused()) {
+            return;
         }
+        boolean over = !engine.isStarted();
+        try {
+            GameSnapshot.read(snapshotPath).restore(engine);
+        } catch (IOException | IllegalArgumentException e) {
+            setStatus("Не удалось загрузить: " + e.getMessage());
+            return;
+        }
+        rewind.clear();
+        rewind.record(engine);
+        resumeAfterJump(over);
     }
 
-    private void clearBoard() {
-        for (int i = 0; i < BOARD_HEIGHT * BOARD_WIDTH; ++i) {
-            board[i] = Tetromino.NO_SHAPE;
+    /**
+     * Brings the view, sound and bot in line with an engine state that was just restored.
+     */
+    private void resumeAfterJump(boolean wasOver) {
+        events.publish(GameEventRing.REWOUND, engine.getTicks(), engine.getLinesRemoved(), 0);
+        updatePreview();
+        if (wasOver && engine.isStarted()) {
+            publishStarted();
+        } else {
+            setStatus(String.format(engine.isStarted() ? "Счёт: %d" : "Игра окончена. Счёт: %d",
+                engine.getLinesRemoved()));
+        }
+        frames.back().capture(engine, viewRows, loop.getTickNanos(), GameLoop.TICK_NANOS);
+        frames.publish();
+        repaint();
+        if (autoplay && engine.isStarted()) {
+            playAutomatically();
         }
     }
 
-    private void pieceDropped() {
-        for (int i = 0; i < 4; ++i) {
-            int x = curX + curPiece.x(i);
-            int y = curY - curPiece.y(i);
-            board[y * BOARD_WIDTH + x] = curPiece.getShape();
+    @Override
+    public void pieceSpawned() {
+        if (rewinding) {
+            return;
+        }
+        updatePreview();
+        if (autoplay) {
+            playAutomatically();
         }
+    }
 
-        audio.playLockSound();
-        removeFullLines();
+    /**
+     * Lets the {@link AutoPlayer} choose where the falling piece goes on the search pool, so the
+     * simulation keeps ticking meanwhile. The result comes back to the simulation thread, which
+     * sends its inputs through the same {@link InputProcessor} as the keyboard.
+     */
+    private void playAutomatically() {
+        long search = ++autoplaySearch;
+        autoplayPiece = engine.getCurrentPiece();
+        autoplayX = engine.getCurX();
+        autoplayY = engine.getCurY();
+        autoPlayer.chooseLater(engine, placement -> loop.post(() -> playPlacement(search, placement)));
+    }
 
-        if (!isFallingFinished) {
-            newPiece();
+    /**
+     * Taps in the inputs of a finished search, which are applied before the next gravity step. A
+     * search overtaken by a newer one is dropped, and one for a piece that has since moved is
+     * started again from where the piece is now.
+     */
+    private void playPlacement(long search, Placement placement) {
+        if (search != autoplaySearch || !autoplay || placement == null) {
+            return;
+        }
+        if (engine.getCurrentPiece() != autoplayPiece || engine.getCurX() != autoplayX
+                || engine.getCurY() != autoplayY) {
+            if (engine.isStarted()) {
+                playAutomatically();
+            }
+            return;
+        }
+        for (GameInput gameInput : placement.getInputs()) {
+            input.tap(gameInput);
         }
     }
 
-    private void newPiece() {
-        if (nextPiece == null) {
-            nextPiece = new Shape();
-            nextPiece.setRandomShape();
+    private void toggleAutoplay() {
+        autoplay = !autoplay;
+        if (autoplay) {
+            playAutomatically();
         }
+    }
 
-        curPiece = nextPiece;
-        nextPiece = new Shape();
-        nextPiece.setRandomShape();
-        updatePreview();
-        curX = BOARD_WIDTH / 2 + curPiece.minX();
-        curY = BOARD_HEIGHT - 1 + curPiece.minY();
-
-        if (!tryMove(curPiece, curX, curY)) {
-            curPiece.setShape(Tetromino.NO_SHAPE);
-            timer.stop();
-            isStarted = false;
-            statusBar.setText(String.format("Игра окончена. Счёт: %d", numLinesRemoved));
-            audio.stopMusic();
+    @Override
+    public void pieceLocked() {
+        if (rewinding) {
+            return;
         }
+        pieceBounds(dirty);
+        repaint(dirty);
+        events.publish(GameEventRing.LOCKED, engine.getTicks(), 0, 0);
     }
 
-    private boolean tryMove(Shape newPiece, int newX, int newY) {
-        for (int i = 0; i < 4; ++i) {
-            int x = newX + newPiece.x(i);
-            int y = newY - newPiece.y(i);
-            if (x < 0 || x >= BOARD_WIDTH || y < 0 || y >= BOARD_HEIGHT) {
-                return false;
-            }
-            if (shapeAt(x, y) != Tetromino.NO_SHAPE) {
-                return false;
-            }
+    @Override
+    public void linesCleared(int lines, int totalLines) {
+        if (rewinding) {
+            return;
+        }
+        int bottom = boardTop() + (viewTop() + 1 - engine.getLowestClearedRow()) * squareHeight();
+        repaint(0, 0, getWidth(), bottom);
+        events.publish(GameEventRing.LINES, engine.getTicks(), lines, totalLines);
+        if (versus != null) {
+            versus.linesCleared(lines);
         }
+    }
 
-        curPiece = newPiece;
-        curX = newX;
-        curY = newY;
+    @Override
+    public void gameOver(int totalLines) {
+        if (rewinding) {
+            return;
+        }
+        if (applying) {
+            // published after the input that ended the game, so the replay records the input first
+            overAfterInput = true;
+        } else {
+            publishEnd(GameEventRing.GAME_OVER);
+        }
         repaint();
-        return true;
     }
 
-    private void removeFullLines() {
-        int numFullLines = 0;
+    private void openReplay(String path) {
+        if (path == null) {
+            return;
+        }
+        if (!engine.isStandardSize()) {
+            System.err.println("Replay recording disabled: it needs the standard board size");
+            return;
+        }
+        try {
+            replay = new ReplayRecorder(new ReplayWriter(Path.of(path)), events);
+        } catch (IOException e) {
+            System.err.println("Replay recording disabled: " + e.getMessage());
+        }
+    }
 
-        for (int i = BOARD_HEIGHT - 1; i >= 0; --i) {
-            boolean lineFull = true;
+    /**
+     * Keeps the results of finished solo games in the high-score store at {@code path}; an empty
+     * path turns this off. Boards of other sizes are ranked separately.
+     */
+    private void openScores(String path) {
+        if (path.isEmpty()) {
+            return;
+        }
+        String sizeSuffix = engine.isStandardSize() ? "" : "/" + engine.getWidth() + "x" + engine.getHeight();
+        scores = new ScoreRecorder(Path.of(path), sizeSuffix,
+            System.getProperty("tetris.player", System.getProperty("user.name", "player")), events);
+    }
 
-            for (int j = 0; j < BOARD_WIDTH; ++j) {
-                if (shapeAt(j, i) == Tetromino.NO_SHAPE) {
-                    lineFull = false;
-                    break;
-                }
+    /**
+     * Stops the simulation, so this thread becomes the only producer, and records the end of a
+     * game still in progress before closing the replay archive and the high-score store.
+     */
+    private void closeRecorders() {
+        loop.stop();
+        if (engine.isStarted()) {
+            publishEnd(GameEventRing.ENDED);
+        }
+        try {
+            if (replay != null) {
+                replay.close();
             }
-
-            if (lineFull) {
-                ++numFullLines;
-
-                for (int k = i; k < BOARD_HEIGHT - 1; ++k) {
-                    for (int j = 0; j < BOARD_WIDTH; ++j) {
-                        board[k * BOARD_WIDTH + j] = shapeAt(j, k + 1);
-                    }
-                }
-
-                for (int j = 0; j < BOARD_WIDTH; ++j) {
-                    board[(BOARD_HEIGHT - 1) * BOARD_WIDTH + j] = Tetromino.NO_SHAPE;
-                }
+        } catch (IOException e) {
+            System.err.println("Failed to close replay: " + e.getMessage());
+        }
+        try {
+            if (scores != null) {
+                scores.close();
             }
+        } catch (IOException e) {
+            System.err.println("Failed to close high scores: " + e.getMessage());
         }
+    }
 
-        if (numFullLines > 0) {
-            numLinesRemoved += numFullLines;
-            statusBar.setText(String.format("Счёт: %d", numLinesRemoved));
-            audio.playLineClearSound(numFullLines);
-            isFallingFinished = true;
-            curPiece.setShape(Tetromino.NO_SHAPE);
-            repaint();
-        }
+    private boolean isRecordingReplay() {
+        return replay != null && replay.isRecording();
     }
 
     private void updatePreview() {
-        if (nextPiecePanel != null) {
-            nextPiecePanel.setPreview(nextPiece);
+        for (int i = 0; i < PREVIEW_COUNT; ++i) {
+            upcoming[i] = engine.getGenerator().peek(i);
         }
+        events.publish(GameEventRing.SPAWNED, engine.getTicks(),
+            GameEventRing.packUpcoming(upcoming, PREVIEW_COUNT), 0);
     }
 
-    private void drawSquare(Graphics g, int x, int y, Tetromino shape) {
-        Color[] colors = {
-            new Color(0, 0, 0),
-            new Color(204, 102, 102),
-            new Color(102, 204, 102),
-            new Color(102, 102, 204),
-            new Color(204, 204, 102),
-            new Color(204, 102, 204),
-            new Color(102, 204, 204),
-            new Color(218, 170, 0)
-        };
-
-        Color color = colors[shape.ordinal()];
-
-        g.setColor(color);
-        g.fillRect(x + 1, y + 1, squareWidth() - 2, squareHeight() - 2);
-
-        g.setColor(color.brighter());
-        g.drawLine(x, y + squareHeight() - 1, x, y);
-        g.drawLine(x, y, x + squareWidth() - 1, y);
+    /**
+     * Applies a movement input on the simulation thread, records it in the rewind history and
+     * publishes it for the replay.
+     */
+    private boolean applyInput(GameInput gameInput) {
+        applying = true;
+        boolean applied = engine.apply(gameInput);
+        applying = false;
+        if (!applied) {
+            return false;
+        }
+        rewind.recordInput(engine.getTicks(), gameInput);
+        if (versus != null) {
+            versus.inputApplied(gameInput);
+        }
+        events.publish(GameEventRing.MOVED, engine.getTicks(), gameInput.ordinal(), 0);
+        if (overAfterInput) {
+            overAfterInput = false;
+            publishEnd(GameEventRing.GAME_OVER);
+        }
+        return true;
+    }
 
-        g.setColor(color.darker());
-        g.drawLine(x + 1, y + squareHeight() - 1, x + squareWidth() - 1, y + squareHeight() - 1);
-        g.drawLine(x + squareWidth() - 1, y + squareHeight() - 1, x + squareWidth() - 1, y + 1);
+    private static GameInput inputFor(int keycode) {
+        return switch (keycode) {
+            case KeyEvent.VK_LEFT -> GameInput.MOVE_LEFT;
+            case KeyEvent.VK_RIGHT -> GameInput.MOVE_RIGHT;
+            case KeyEvent.VK_DOWN, KeyEvent.VK_S -> GameInput.SOFT_DROP;
+            case KeyEvent.VK_UP, KeyEvent.VK_D -> GameInput.ROTATE_RIGHT;
+            case KeyEvent.VK_A -> GameInput.ROTATE_LEFT;
+            case KeyEvent.VK_SPACE -> GameInput.HARD_DROP;
+            default -> null;
+        };
     }
 
     private class TAdapter extends KeyAdapter {
         @Override
         public void keyPressed(KeyEvent e) {
-            if (!isStarted || curPiece.getShape() == Tetromino.NO_SHAPE) {
+            if (e.getKeyCode() == KeyEvent.VK_F3) {
+                metrics.setOverlayVisible(!metrics.isOverlayVisible());
+                repaint();
                 return;
             }
-
-            int keycode = e.getKeyCode();
-
-            if (keycode == KeyEvent.VK_P) {
-                pause();
+            if (e.getKeyCode() == KeyEvent.VK_F2) {
+                loop.post(Board.this::toggleAutoplay);
                 return;
             }
-
-            if (isPaused) {
-                return;
+            GameInput gameInput = inputFor(e.getKeyCode());
+            if (gameInput != null) {
+                input.press(gameInput);
+            } else {
+                int keycode = e.getKeyCode();
+                loop.post(() -> handleKey(keycode));
             }
+        }
 
-            switch (keycode) {
-                case KeyEvent.VK_LEFT -> tryMove(curPiece, curX - 1, curY);
-                case KeyEvent.VK_RIGHT -> tryMove(curPiece, curX + 1, curY);
-                case KeyEvent.VK_DOWN -> oneLineDown();
-                case KeyEvent.VK_UP -> tryMove(curPiece.rotateRight(), curX, curY);
-                case KeyEvent.VK_SPACE -> dropDown();
-                case KeyEvent.VK_D -> tryMove(curPiece.rotateRight(), curX, curY);
-                case KeyEvent.VK_A -> tryMove(curPiece.rotateLeft(), curX, curY);
-                case KeyEvent.VK_S -> oneLineDown();
-                case KeyEvent.VK_R -> start();
-                default -> {
-                }
+        @Override
+        public void keyReleased(KeyEvent e) {
+            GameInput gameInput = inputFor(e.getKeyCode());
+            if (gameInput != null) {
+                input.release(gameInput);
             }
         }
     }
+
+    /**
+     * Handles pause, restart, rewind and snapshots on the simulation thread.
+     */
+    private void handleKey(int keycode) {
+        switch (keycode) {
+            case KeyEvent.VK_BACK_SPACE -> rewind();
+            case KeyEvent.VK_F5 -> saveSnapshot();
+            case KeyEvent.VK_F9 -> loadSnapshot();
+            default -> handleGameKey(keycode);
+        }
+    }
+
+    private void handleGameKey(int keycode) {
+        if (keycode == KeyEvent.VK_R && versus != null && !engine.isStarted()) {
+            startGame();
+            return;
+        }
+        if (!engine.isStarted() || engine.getCurrentPiece().getShape() == Tetromino.NO_SHAPE) {
+            return;
+        }
+
+        if (keycode == KeyEvent.VK_P) {
+            pause();
+            return;
+        }
+
+        if (keycode == KeyEvent.VK_R && !loop.isPaused()) {
+            startGame();
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.example.tetris;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * Draws the window of the board held by a {@link FrameSnapshot}; shared by passive and active
+ * rendering. The falling piece is shown together with a translucent ghost where it would land.
+ */
+final class BoardRenderer {
+    private static final double MAX_FALL_ROWS = 0.999;
+    private static final AlphaComposite GHOST = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.3f);
+
+    private final TileSprites sprites;
+
+    BoardRenderer(TileSprites sprites) {
+        this.sprites = sprites;
+    }
+
+    /**
+     * Paints the rows intersecting {@code clip} (all rows when null) with the falling piece
+     * aligned to its row.
+     */
+    void paint(Graphics g, FrameSnapshot frame, int width, int height, Rectangle clip) {
+        paint(g, frame, width, height, clip, 0);
+    }
+
+    /**
+     * Paints the whole board with the falling piece moved {@code alpha} of a tick, in [0, 1],
+     * past the snapshot along its gravity, never reaching the next row.
+     */
+    void paintInterpolated(Graphics g, FrameSnapshot frame, int width, int height, double alpha) {
+        double rows = Math.min(frame.fallRows + alpha * frame.fallRowsPerTick, MAX_FALL_ROWS);
+        paint(g, frame, width, height, null, rows);
+    }
+
+    private void paint(Graphics g, FrameSnapshot frame, int width, int height, Rectangle clip, double fallRows) {
+        int squareWidth = width / frame.width;
+        int squareHeight = height / frame.viewRows;
+        if (squareWidth == 0 || squareHeight == 0) {
+            return;
+        }
+        int boardTop = height - frame.viewRows * squareHeight;
+        // board row shown on the first screen row
+        int viewTop = frame.viewBottom + frame.viewRows - 1;
+
+        int firstRow = 0;
+        int lastRow = frame.viewRows - 1;
+        if (clip != null) {
+            firstRow = Math.max(firstRow, (clip.y - boardTop) / squareHeight);
+            lastRow = Math.min(lastRow, (clip.y + clip.height - 1 - boardTop) / squareHeight);
+        }
+
+        for (int i = firstRow; i <= lastRow; ++i) {
+            int y = viewTop - i;
+            if (frame.row(y) == 0) {
+                continue;
+            }
+            for (int j = 0; j < frame.width; ++j) {
+                int color = frame.colorAt(j, y);
+                if (color != 0) {
+                    sprites.draw(g, color, j * squareWidth, boardTop + i * squareHeight, squareWidth, squareHeight);
+                }
+            }
+        }
+
+        Shape piece = frame.piece;
+        if (piece.getShape() != Tetromino.NO_SHAPE) {
+            if (frame.ghostY < frame.pieceY) {
+                Graphics2D g2 = (Graphics2D) g;
+                Composite composite = g2.getComposite();
+                g2.setComposite(GHOST);
+                for (int i = 0; i < 4; ++i) {
+                    int x = frame.pieceX + piece.x(i);
+                    int y = frame.ghostY - piece.y(i);
+                    sprites.draw(g, piece.getShape(), x * squareWidth,
+                        boardTop + (viewTop - y) * squareHeight, squareWidth, squareHeight);
+                }
+                g2.setComposite(composite);
+            }
+
+            int fall = (int) (fallRows * squareHeight);
+            for (int i = 0; i < 4; ++i) {
+                int x = frame.pieceX + piece.x(i);
+                int y = frame.pieceY - piece.y(i);
+                sprites.draw(g, piece.getShape(), x * squareWidth,
+                    boardTop + (viewTop - y) * squareHeight + fall, squareWidth, squareHeight);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.tetris;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Base for generators that draw pieces in batches into a lookahead ring buffer.
+ * Random numbers come from a SplitMix64 sequence that matches {@link java.util.SplittableRandom}
+ * seeded the same way, with its state kept in a plain field so that it can be saved and restored.
+ */
+abstract class BufferedPieceGenerator implements PieceGenerator {
+    static final Tetromino[] PIECES = Arrays.copyOfRange(Tetromino.values(), 1, Tetromino.values().length);
+
+    private static final int CAPACITY = 32;
+    private static final int MASK = CAPACITY - 1;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long seed;
+    private long randomState;
+    private final Tetromino[] buffer = new Tetromino[CAPACITY];
+    private int head;
+    private int size;
+
+    BufferedPieceGenerator(long seed) {
+        restart(seed);
+    }
+
+    @Override
+    public void reset(long seed) {
+        restart(seed);
+    }
+
+    private void restart(long seed) {
+        this.seed = seed;
+        randomState = seed;
+        head = 0;
+        size = 0;
+    }
+
+    @Override
+    public final long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a uniform value in [0, {@code bound}), exactly as {@code SplittableRandom.nextInt(bound)}.
+     */
+    protected final int nextInt(int bound) {
+        int r = nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+            // reject values from the incomplete last range
+        }
+        return r;
+    }
+
+    private int nextInt() {
+        long z = randomState += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+        return (int) (((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+    }
+
+    /**
+     * Appends a batch of pieces with {@link #push(Tetromino)}; at most {@code room} may be pushed.
+     */
+    protected abstract void refill(int room);
+
+    protected final void push(Tetromino piece) {
+        buffer[(head + size) & MASK] = piece;
+        ++size;
+    }
+
+    @Override
+    public final Tetromino next() {
+        ensure(LOOKAHEAD + 1);
+        Tetromino piece = buffer[head];
+        head = (head + 1) & MASK;
+        --size;
+        return piece;
+    }
+
+    @Override
+    public final Tetromino peek(int ahead) {
+        if (ahead < 0 || ahead >= LOOKAHEAD) {
+            throw new IndexOutOfBoundsException(ahead);
+        }
+        ensure(LOOKAHEAD);
+        return buffer[(head + ahead) & MASK];
+    }
+
+    private void ensure(int count) {
+        while (size < count) {
+            refill(CAPACITY - size);
+        }
+    }
+
+    /**
+     * Writes the seed, the random state and the buffered pieces.
+     */
+    @Override
+    public void saveState(ByteBuffer out) {
+        out.putLong(seed);
+        out.putLong(randomState);
+        out.put((byte) size);
+        for (int i = 0; i < size; ++i) {
+            out.put((byte) buffer[(head + i) & MASK].ordinal());
+        }
+    }
+
+    /**
+     * Reads a piece saved by its ordinal; pieces are never {@link Tetromino#NO_SHAPE}.
+     */
+    static Tetromino readPiece(ByteBuffer in) {
+        return PIECES[in.get() - 1];
+    }
+
+    @Override
+    public void loadState(ByteBuffer in) {
+        seed = in.getLong();
+        randomState = in.getLong();
+        head = 0;
+        size = in.get();
+        for (int i = 0; i < size; ++i) {
+            buffer[i] = readPiece(in);
+        }
+    }
+}
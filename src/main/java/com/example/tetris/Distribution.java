@@ -0,0 +1,101 @@
+package com.example.tetris;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable histogram of non-negative samples.
+ * Values below 64 are counted exactly; larger values fall into log-linear buckets with
+ * 32 sub-buckets per power of two, so quantiles stay within about 3% of the true value.
+ */
+public final class Distribution {
+    private static final int EXACT = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int BUCKETS = EXACT + (63 - 6 + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative sample: " + value);
+        }
+        ++counts[bucketOf(value)];
+        ++count;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(Distribution other) {
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long percentile(double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, Math.max(min(), lowerBound(i)));
+            }
+        }
+        return max;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - 5;
+        return EXACT + (exponent - 6) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long lowerBound(int bucket) {
+        if (bucket < EXACT) {
+            return bucket;
+        }
+        int exponent = (bucket - EXACT) / SUB_BUCKETS + 6;
+        long mantissa = (bucket - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return mantissa << (exponent - 5);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean %.1f, p50 %d, p90 %d, p99 %d, max %d",
+            mean(), percentile(0.5), percentile(0.9), percentile(0.99), max);
+    }
+}
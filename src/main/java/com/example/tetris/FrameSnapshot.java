@@ -0,0 +1,69 @@
+package com.example.tetris;
+
+/**
+ * Copy of everything needed to draw one frame, so rendering never touches live game state.
+ * Only the rows of the visible window are copied, so a frame costs the same on a board of any
+ * height.
+ */
+final class FrameSnapshot {
+    long[] rows = new long[0];
+    byte[] cells = new byte[0];
+    int width = GameEngine.BOARD_WIDTH;
+    int viewBottom;
+    int viewRows = GameEngine.BOARD_HEIGHT;
+    Shape piece = Shape.of(Tetromino.NO_SHAPE);
+    int pieceX;
+    int pieceY;
+    int ghostY;
+    double fallRows;
+    double fallRowsPerTick;
+    long tickNanos;
+    long tickPeriodNanos;
+
+    /**
+     * Lowest row of a window of {@code viewRows} rows whose top is the spawn row, so the window
+     * shows the falling piece and as much of the stack below it as fits.
+     */
+    static int viewBottom(GameEngine engine, int viewRows) {
+        return Math.max(0, engine.getSpawnRow() + 1 - viewRows);
+    }
+
+    /**
+     * Captures the engine state at the tick that ran at {@code tickNanos}, with at most
+     * {@code viewRows} rows around the top of the stack. The gravity progress below the piece's
+     * row lets renderers move it smoothly until the next tick.
+     */
+    void capture(GameEngine engine, int viewRows, long tickNanos, long tickPeriodNanos) {
+        width = engine.getWidth();
+        this.viewRows = Math.min(viewRows, engine.getHeight());
+        viewBottom = viewBottom(engine, this.viewRows);
+        if (rows.length != this.viewRows || cells.length != this.viewRows * width) {
+            rows = new long[this.viewRows];
+            cells = new byte[this.viewRows * width];
+        }
+        engine.copyGrid(viewBottom, this.viewRows, rows, cells);
+        piece = engine.getCurrentPiece();
+        pieceX = engine.getCurX();
+        pieceY = engine.getCurY();
+        ghostY = piece.getShape() == Tetromino.NO_SHAPE ? pieceY : engine.getGhostY();
+        boolean falling = piece.getShape() != Tetromino.NO_SHAPE && engine.canPlace(piece, pieceX, pieceY - 1);
+        fallRows = falling ? (double) engine.getGravityProgress() / GameEngine.ROW : 0;
+        fallRowsPerTick = falling ? (double) engine.getGravity() / GameEngine.ROW : 0;
+        this.tickNanos = tickNanos;
+        this.tickPeriodNanos = tickPeriodNanos;
+    }
+
+    /**
+     * Row mask of board row {@code y}, which must be in the window.
+     */
+    long row(int y) {
+        return rows[y - viewBottom];
+    }
+
+    /**
+     * Cell color as in {@link GameEngine#colorAt(int, int)}, for a row in the window.
+     */
+    int colorAt(int x, int y) {
+        return cells[(y - viewBottom) * width + x];
+    }
+}
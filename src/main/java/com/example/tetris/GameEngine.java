@@ -0,0 +1,718 @@
+package com.example.tetris;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Headless game rules: the grid, the falling piece and line clearing, without any AWT dependency.
+ * Each row is stored as a {@code long} bitmask so collision checks, full-line detection and row
+ * compaction are word operations; piece colors live in a separate compact per-cell array.
+ *
+ * <p>The board is {@link #BOARD_WIDTH} by {@link #BOARD_HEIGHT} unless other dimensions are given,
+ * up to {@link #MAX_WIDTH} columns and {@link #MAX_HEIGHT} rows. New pieces spawn at most
+ * {@link #BOARD_HEIGHT} rows above the stack, so on a tall board they do not fall from the very
+ * top. Work per line clear and per garbage rise is bounded by the stack, not by the board height.
+ *
+ * <p>The game advances in fixed ticks of {@link #TICKS_PER_SECOND}. Gravity rises with the level
+ * (one level per ten lines) from one row every 24 ticks up to 20G, where a piece reaches the floor
+ * on the tick it spawns, and a grounded piece locks after {@link #LOCK_DELAY_TICKS}.
+ */
+public final class GameEngine {
+    /**
+     * Size of the standard board, which the bot, replays and versus mode assume.
+     */
+    public static final int BOARD_WIDTH = 10;
+    public static final int BOARD_HEIGHT = 22;
+    public static final int MIN_SIZE = 4;
+    public static final int MAX_WIDTH = Long.SIZE;
+    public static final int MAX_HEIGHT = 1 << 14;
+    public static final int TICKS_PER_SECOND = 60;
+    public static final int LOCK_DELAY_TICKS = 30;
+    /**
+     * Cell color of garbage rows, after the {@link Tetromino} ordinals.
+     */
+    public static final int GARBAGE = Tetromino.values().length;
+    /**
+     * Upper bound on the size of a state of a standard board written by {@link #saveState(ByteBuffer)}.
+     */
+    public static final int STATE_BYTES = stateBytes(BOARD_WIDTH, BOARD_HEIGHT);
+    private static final int STATE_HEADER_BYTES = 40;
+    private static final int MAX_LOCK_RESETS = 15;
+    private static final int LINES_PER_LEVEL = 10;
+    private static final Tetromino[] SHAPES = Tetromino.values();
+
+    static final int ROW = 1 << 16;
+    private static final int GRAVITY_20G = 20 * ROW;
+    /**
+     * Gravity per level in 1/65536 rows per tick.
+     */
+    private static final int[] GRAVITY = {
+        ROW / 24, ROW / 20, ROW / 16, ROW / 12, ROW / 10, ROW / 8, ROW / 6, ROW / 4,
+        ROW / 3, ROW / 2, ROW, 2 * ROW, 3 * ROW, 5 * ROW, GRAVITY_20G
+    };
+
+    private final int width;
+    private final int height;
+    private final long fullRow;
+    private final long[] rows;
+    private final byte[] cells;
+    /**
+     * Per-column skyline: one above the highest filled cell, or 0 for an empty column.
+     */
+    private final int[] heights;
+    private final GameListener listener;
+    private final PieceGenerator generator;
+    private boolean isFallingFinished = false;
+    private boolean isStarted = false;
+    private int numLinesRemoved = 0;
+    private int numPiecesPlaced = 0;
+    private int lowestClearedRow = -1;
+    private long numTicks = 0;
+    private int curX = 0;
+    private int curY = 0;
+    private Shape curPiece;
+    private int gravityProgress = 0;
+    private int lockTicks = 0;
+    private int lockResets = 0;
+    /**
+     * Set when a piece spawns so that it hangs at the top for one tick before gravity takes it,
+     * giving inputs queued on its spawn a tick to act even at 20G.
+     */
+    private boolean spawnGrace = false;
+    private Metrics metrics;
+
+    public GameEngine() {
+        this(GameListener.NONE);
+    }
+
+    public GameEngine(GameListener listener) {
+        this(listener, System.nanoTime());
+    }
+
+    public GameEngine(GameListener listener, long seed) {
+        this(listener, new UniformGenerator(seed));
+    }
+
+    public GameEngine(GameListener listener, PieceGenerator generator) {
+        this(listener, generator, BOARD_WIDTH, BOARD_HEIGHT);
+    }
+
+    public GameEngine(GameListener listener, PieceGenerator generator, int width, int height) {
+        if (width < MIN_SIZE || width > MAX_WIDTH || height < MIN_SIZE || height > MAX_HEIGHT) {
+            throw new IllegalArgumentException("Board size must be from " + MIN_SIZE + "x" + MIN_SIZE + " to "
+                + MAX_WIDTH + "x" + MAX_HEIGHT + ": " + width + "x" + height);
+        }
+        this.listener = listener;
+        this.generator = generator;
+        this.width = width;
+        this.height = height;
+        fullRow = width == Long.SIZE ? -1L : (1L << width) - 1;
+        rows = new long[height];
+        cells = new byte[width * height];
+        heights = new int[width];
+        curPiece = Shape.of(Tetromino.NO_SHAPE);
+    }
+
+    /**
+     * Upper bound on the size of a state written by {@link #saveState(ByteBuffer)} for a board of
+     * the given size.
+     */
+    public static int stateBytes(int width, int height) {
+        return (width * height + 1) / 2 + STATE_HEADER_BYTES + PieceGenerator.STATE_BYTES;
+    }
+
+    public int getStateBytes() {
+        return stateBytes(width, height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Whether the board has the standard size.
+     */
+    public boolean isStandardSize() {
+        return width == BOARD_WIDTH && height == BOARD_HEIGHT;
+    }
+
+    /**
+     * Restarts the piece generator from {@code seed} and starts a new game, so the same seed and
+     * inputs always reproduce the same game.
+     */
+    public void start(long seed) {
+        generator.reset(seed);
+        start();
+    }
+
+    public void start() {
+        isStarted = true;
+        isFallingFinished = false;
+        numLinesRemoved = 0;
+        numPiecesPlaced = 0;
+        numTicks = 0;
+        clearBoard();
+        curPiece = Shape.of(Tetromino.NO_SHAPE);
+
+        newPiece();
+    }
+
+    /**
+     * Advances the game by one fixed tick: spawns the next piece after a line clear, applies gravity
+     * and locks a grounded piece once its lock delay has run out.
+     */
+    public void tick() {
+        if (!isStarted) {
+            return;
+        }
+        ++numTicks;
+        if (isFallingFinished) {
+            isFallingFinished = false;
+            newPiece();
+            spawnGrace = false;
+            return;
+        }
+
+        int gravity = getGravity();
+        if (spawnGrace) {
+            spawnGrace = false;
+        } else if (gravity >= GRAVITY_20G) {
+            while (tryMove(curPiece, curX, curY - 1)) {
+                // fall to the floor
+            }
+        } else {
+            gravityProgress += gravity;
+            while (gravityProgress >= ROW) {
+                gravityProgress -= ROW;
+                if (!tryMove(curPiece, curX, curY - 1)) {
+                    gravityProgress = 0;
+                    break;
+                }
+            }
+        }
+
+        if (canPlace(curPiece, curX, curY - 1)) {
+            lockTicks = 0;
+        } else if (++lockTicks >= LOCK_DELAY_TICKS) {
+            pieceDropped();
+        }
+    }
+
+    public int getLevel() {
+        return numLinesRemoved / LINES_PER_LEVEL;
+    }
+
+    /**
+     * Current gravity in 1/65536 rows per tick.
+     */
+    public int getGravity() {
+        return GRAVITY[Math.min(getLevel(), GRAVITY.length - 1)];
+    }
+
+    /**
+     * Fraction of the next row the falling piece has accumulated, in 1/65536 rows.
+     */
+    public int getGravityProgress() {
+        return gravityProgress;
+    }
+
+    /**
+     * Applies a player action to the falling piece; returns whether the piece moved or locked.
+     */
+    public boolean apply(GameInput input) {
+        if (!isStarted || curPiece.getShape() == Tetromino.NO_SHAPE) {
+            return false;
+        }
+        return switch (input) {
+            case MOVE_LEFT -> moveLeft();
+            case MOVE_RIGHT -> moveRight();
+            case ROTATE_LEFT -> rotateLeft();
+            case ROTATE_RIGHT -> rotateRight();
+            case SOFT_DROP -> {
+                oneLineDown();
+                yield true;
+            }
+            case HARD_DROP -> {
+                dropDown();
+                yield true;
+            }
+        };
+    }
+
+    public boolean moveLeft() {
+        return resetLockDelay(tryMove(curPiece, curX - 1, curY));
+    }
+
+    public boolean moveRight() {
+        return resetLockDelay(tryMove(curPiece, curX + 1, curY));
+    }
+
+    public boolean rotateLeft() {
+        return resetLockDelay(tryMove(curPiece.rotateLeft(), curX, curY));
+    }
+
+    public boolean rotateRight() {
+        return resetLockDelay(tryMove(curPiece.rotateRight(), curX, curY));
+    }
+
+    /**
+     * Restarts the lock delay after a successful shift or rotation of a grounded piece, a limited
+     * number of times per piece so it cannot be stalled forever.
+     */
+    private boolean resetLockDelay(boolean moved) {
+        if (moved && lockTicks > 0 && lockResets < MAX_LOCK_RESETS) {
+            lockTicks = 0;
+            ++lockResets;
+        }
+        return moved;
+    }
+
+    public void oneLineDown() {
+        if (!tryMove(curPiece, curX, curY - 1)) {
+            pieceDropped();
+        }
+    }
+
+    public void dropDown() {
+        curY = landingY(curPiece, curX, curY);
+        pieceDropped();
+    }
+
+    /**
+     * Row where the current piece would lock if dropped straight down.
+     */
+    public int getGhostY() {
+        return landingY(curPiece, curX, curY);
+    }
+
+    /**
+     * Returns the lowest {@code y} at or below {@code y0} that {@code piece} can fall to from
+     * ({@code x0}, {@code y0}), which must be a valid placement. When the piece is above the
+     * skyline of its columns this is read off the column heights in constant time; only a piece
+     * tucked under an overhang falls back to scanning down row by row.
+     */
+    public int landingY(Shape piece, int x0, int y0) {
+        int left = x0 + piece.minX();
+        int landing = Integer.MIN_VALUE;
+        for (int i = piece.maxX() - piece.minX(); i >= 0; --i) {
+            landing = Math.max(landing, heights[left + i] + piece.columnBottom(i));
+        }
+        if (landing <= y0) {
+            return landing;
+        }
+        int y = y0;
+        while (canPlace(piece, x0, y - 1)) {
+            --y;
+        }
+        return y;
+    }
+
+    /**
+     * Spawn column of {@code piece} on a standard board.
+     */
+    public static int spawnX(Shape piece) {
+        return BOARD_WIDTH / 2 + piece.minX();
+    }
+
+    /**
+     * Spawn row that puts the top cell of {@code piece} on the top row of a standard board.
+     */
+    public static int spawnY(Shape piece) {
+        return BOARD_HEIGHT - 1 + piece.minY();
+    }
+
+    public int getColumnHeight(int x) {
+        return heights[x];
+    }
+
+    /**
+     * One above the highest filled cell, or 0 for an empty board.
+     */
+    public int getStackHeight() {
+        int stack = 0;
+        for (int h : heights) {
+            stack = Math.max(stack, h);
+        }
+        return stack;
+    }
+
+    /**
+     * Row that the top cell of the next piece spawns on: the top row, or {@link #BOARD_HEIGHT}
+     * rows above the stack on a taller board.
+     */
+    public int getSpawnRow() {
+        return Math.min(height, getStackHeight() + BOARD_HEIGHT) - 1;
+    }
+
+    public boolean tryMove(Shape newPiece, int newX, int newY) {
+        if (metrics != null) {
+            metrics.countTryMove();
+        }
+        if (!canPlace(newPiece, newX, newY)) {
+            return false;
+        }
+
+        curPiece = newPiece;
+        curX = newX;
+        curY = newY;
+        return true;
+    }
+
+    public boolean canPlace(Shape piece, int x0, int y0) {
+        int left = x0 + piece.minX();
+        if (left < 0 || x0 + piece.maxX() >= width
+                || y0 - piece.maxY() < 0 || y0 - piece.minY() >= height) {
+            return false;
+        }
+        int top = y0 - piece.minY();
+        for (int i = piece.maxY() - piece.minY(); i >= 0; --i) {
+            if ((rows[top - i] & ((long) piece.rowMask(i) << left)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isStarted() {
+        return isStarted;
+    }
+
+    public boolean isFallingFinished() {
+        return isFallingFinished;
+    }
+
+    public int getLinesRemoved() {
+        return numLinesRemoved;
+    }
+
+    public int getPiecesPlaced() {
+        return numPiecesPlaced;
+    }
+
+    public long getTicks() {
+        return numTicks;
+    }
+
+    /**
+     * Returns the lowest row removed by the most recent line clear, or -1 if no lines were cleared yet.
+     */
+    public int getLowestClearedRow() {
+        return lowestClearedRow;
+    }
+
+    public int getCurX() {
+        return curX;
+    }
+
+    public int getCurY() {
+        return curY;
+    }
+
+    public Shape getCurrentPiece() {
+        return curPiece;
+    }
+
+    public Shape getNextPiece() {
+        return Shape.of(generator.peek(0));
+    }
+
+    public PieceGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Reports move attempts, locked pieces and line-clear times to {@code metrics}; null disables it.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public long getRow(int y) {
+        return rows[y];
+    }
+
+    /**
+     * Color of a cell: 0 when empty, the {@link Tetromino} ordinal of the piece that filled it, or
+     * {@link #GARBAGE}.
+     */
+    public int colorAt(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    /**
+     * Copies the row masks and cell colors of {@code rowCount} rows from {@code fromRow} up.
+     */
+    public void copyGrid(int fromRow, int rowCount, long[] rowsOut, byte[] cellsOut) {
+        System.arraycopy(rows, fromRow, rowsOut, 0, rowCount);
+        System.arraycopy(cells, fromRow * width, cellsOut, 0, rowCount * width);
+    }
+
+    /**
+     * Hash of the grid, the falling piece and the counters, used to verify replayed games.
+     */
+    public long stateHash() {
+        long hash = 0xCBF29CE484222325L;
+        for (long row : rows) {
+            hash = (hash ^ row) * 0x100000001B3L;
+        }
+        for (byte cell : cells) {
+            hash = (hash ^ cell) * 0x100000001B3L;
+        }
+        hash = (hash ^ curPiece.getShape().ordinal()) * 0x100000001B3L;
+        hash = (hash ^ curPiece.getRotation()) * 0x100000001B3L;
+        hash = (hash ^ curX) * 0x100000001B3L;
+        hash = (hash ^ curY) * 0x100000001B3L;
+        hash = (hash ^ numLinesRemoved) * 0x100000001B3L;
+        return (hash ^ numPiecesPlaced) * 0x100000001B3L;
+    }
+
+    /**
+     * Writes the complete game state, including the piece generator, in at most
+     * {@link #getStateBytes()} bytes: the board size, two cells per byte, then the falling piece,
+     * timers and counters.
+     */
+    public void saveState(ByteBuffer out) {
+        out.putShort((short) width);
+        out.putShort((short) height);
+        for (int i = 0; i < cells.length; i += 2) {
+            out.put((byte) (cells[i] | (i + 1 < cells.length ? cells[i + 1] : 0) << 4));
+        }
+        out.put((byte) ((isStarted ? 1 : 0) | (isFallingFinished ? 2 : 0) | (spawnGrace ? 4 : 0)));
+        out.putInt(numLinesRemoved);
+        out.putInt(numPiecesPlaced);
+        out.putShort((short) lowestClearedRow);
+        out.putLong(numTicks);
+        out.put((byte) curPiece.getShape().ordinal());
+        out.put((byte) curPiece.getRotation());
+        out.put((byte) curX);
+        out.putShort((short) curY);
+        out.putInt(gravityProgress);
+        out.put((byte) lockTicks);
+        out.put((byte) lockResets);
+        generator.saveState(out);
+    }
+
+    /**
+     * Restores a state written by {@link #saveState(ByteBuffer)} by an engine with the same board
+     * size and the same kind of generator. Listeners are not notified.
+     */
+    public void loadState(ByteBuffer in) {
+        int savedWidth = in.getShort();
+        int savedHeight = in.getShort();
+        if (savedWidth != width || savedHeight != height) {
+            throw new IllegalArgumentException("State of a " + savedWidth + "x" + savedHeight
+                + " board cannot be loaded into a " + width + "x" + height + " board");
+        }
+        for (int i = 0; i < cells.length; i += 2) {
+            int pair = in.get();
+            cells[i] = (byte) (pair & 0xF);
+            if (i + 1 < cells.length) {
+                cells[i + 1] = (byte) ((pair >> 4) & 0xF);
+            }
+        }
+        loadCells(cells);
+        int flags = in.get();
+        isStarted = (flags & 1) != 0;
+        isFallingFinished = (flags & 2) != 0;
+        spawnGrace = (flags & 4) != 0;
+        numLinesRemoved = in.getInt();
+        numPiecesPlaced = in.getInt();
+        lowestClearedRow = in.getShort();
+        numTicks = in.getLong();
+        Tetromino type = SHAPES[in.get()];
+        curPiece = Shape.of(type, in.get());
+        curX = in.get();
+        curY = in.getShort();
+        gravityProgress = in.getInt();
+        lockTicks = in.get();
+        lockResets = in.get();
+        generator.loadState(in);
+    }
+
+    /**
+     * Pushes the stack up by {@code lines} garbage rows that are full except for column
+     * {@code hole}. A falling piece that now overlaps the stack is lifted above it; the game is
+     * over if filled cells are pushed off the top or the piece cannot be lifted.
+     */
+    public void addGarbage(int lines, int hole) {
+        if (!isStarted || lines <= 0) {
+            return;
+        }
+        lines = Math.min(lines, height);
+        // only the stack moves; the rows above it are empty
+        int stack = getStackHeight();
+        boolean toppedOut = stack > height - lines;
+        int kept = Math.min(stack, height - lines);
+        System.arraycopy(rows, 0, rows, lines, kept);
+        System.arraycopy(cells, 0, cells, lines * width, kept * width);
+        for (int y = 0; y < lines; ++y) {
+            rows[y] = fullRow & ~(1L << hole);
+            Arrays.fill(cells, y * width, (y + 1) * width, (byte) GARBAGE);
+            cells[y * width + hole] = 0;
+        }
+        for (int x = 0; x < width; ++x) {
+            if (x != hole || heights[x] > 0) {
+                heights[x] = Math.min(height, heights[x] + lines);
+            }
+        }
+        if (toppedOut) {
+            endGame();
+            return;
+        }
+        if (curPiece.getShape() != Tetromino.NO_SHAPE) {
+            int y = curY;
+            while (!canPlace(curPiece, curX, y)) {
+                if (y - curPiece.minY() >= height - 1) {
+                    endGame();
+                    return;
+                }
+                ++y;
+            }
+            curY = y;
+        }
+    }
+
+    /**
+     * Ends the game now, as if the next piece had no room to spawn.
+     */
+    public void stop() {
+        if (isStarted) {
+            endGame();
+        }
+    }
+
+    private void endGame() {
+        curPiece = Shape.of(Tetromino.NO_SHAPE);
+        isStarted = false;
+        listener.gameOver(numLinesRemoved);
+    }
+
+    /**
+     * Replaces the grid with the given row-major cell colors, bottom row first.
+     */
+    void loadCells(byte[] source) {
+        System.arraycopy(source, 0, cells, 0, cells.length);
+        for (int y = 0; y < height; ++y) {
+            long mask = 0;
+            for (int x = 0; x < width; ++x) {
+                if (cells[y * width + x] != 0) {
+                    mask |= 1L << x;
+                }
+            }
+            rows[y] = mask;
+        }
+        for (int x = 0; x < width; ++x) {
+            heights[x] = height;
+            settleColumn(x);
+        }
+    }
+
+    /**
+     * Lowers the height of column {@code x} past any empty cells at its top.
+     */
+    private void settleColumn(int x) {
+        int h = heights[x];
+        while (h > 0 && (rows[h - 1] & (1L << x)) == 0) {
+            --h;
+        }
+        heights[x] = h;
+    }
+
+    private void clearBoard() {
+        Arrays.fill(rows, 0);
+        Arrays.fill(cells, (byte) 0);
+        Arrays.fill(heights, 0);
+    }
+
+    private void pieceDropped() {
+        byte color = (byte) curPiece.getShape().ordinal();
+        int lowest = height;
+        int highest = -1;
+        for (int i = 0; i < 4; ++i) {
+            int x = curX + curPiece.x(i);
+            int y = curY - curPiece.y(i);
+            rows[y] |= 1L << x;
+            cells[y * width + x] = color;
+            heights[x] = Math.max(heights[x], y + 1);
+            lowest = Math.min(lowest, y);
+            highest = Math.max(highest, y);
+        }
+
+        ++numPiecesPlaced;
+        listener.pieceLocked();
+        removeFullLines(lowest, highest);
+
+        if (!isFallingFinished) {
+            newPiece();
+        }
+    }
+
+    private void newPiece() {
+        curPiece = Shape.of(generator.next());
+        gravityProgress = 0;
+        lockTicks = 0;
+        lockResets = 0;
+        spawnGrace = true;
+        curX = width / 2 + curPiece.minX();
+        curY = getSpawnRow() + curPiece.minY();
+
+        if (!tryMove(curPiece, curX, curY)) {
+            endGame();
+            return;
+        }
+        listener.pieceSpawned();
+    }
+
+    /**
+     * Drops every full row between {@code lowest} and {@code highest} and compacts the rows above
+     * in a single pass that stops at the top of the stack, so a clear costs the same on a board
+     * of any height.
+     */
+    private void removeFullLines(int lowest, int highest) {
+        int numFullLines = 0;
+        int firstFull = -1;
+        for (int y = lowest; y <= highest; ++y) {
+            if (rows[y] == fullRow) {
+                if (numFullLines++ == 0) {
+                    firstFull = y;
+                }
+            }
+        }
+        if (numFullLines == 0) {
+            return;
+        }
+
+        long start = metrics == null ? 0 : metrics.start();
+        int stack = getStackHeight();
+        int write = firstFull;
+        for (int read = firstFull; read < stack; ++read) {
+            if (rows[read] == fullRow) {
+                continue;
+            }
+            if (write != read) {
+                rows[write] = rows[read];
+                System.arraycopy(cells, read * width, cells, write * width, width);
+            }
+            ++write;
+        }
+        Arrays.fill(rows, write, stack, 0);
+        Arrays.fill(cells, write * width, stack * width, (byte) 0);
+        for (int x = 0; x < width; ++x) {
+            heights[x] -= numFullLines;
+            settleColumn(x);
+        }
+        if (metrics != null) {
+            metrics.lineClear.stop(start);
+        }
+
+        lowestClearedRow = firstFull;
+        numLinesRemoved += numFullLines;
+        isFallingFinished = true;
+        curPiece = Shape.of(Tetromino.NO_SHAPE);
+        listener.linesCleared(numFullLines, numLinesRemoved);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.tetris;
+
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer, multi-consumer ring of game events.
+ * The simulation thread publishes typed events into parallel primitive arrays and never waits for
+ * or allocates on behalf of its consumers. Each {@link Consumer} keeps its own position and reads
+ * every event published since its last {@link Consumer#poll(Handler)} in one batch. A consumer that
+ * falls a whole ring behind skips to the oldest event still held and counts the events it missed.
+ */
+final class GameEventRing {
+    /**
+     * A game began or came back after game over: {@code first} is the lines so far, {@code value}
+     * the seed and {@code message} the generator name.
+     */
+    static final int STARTED = 0;
+    /**
+     * An input moved or rotated the piece: {@code first} is the {@link GameInput} ordinal.
+     */
+    static final int MOVED = 1;
+    static final int LOCKED = 2;
+    /**
+     * {@code first} lines were cleared, {@code second} in total.
+     */
+    static final int LINES = 3;
+    /**
+     * A piece spawned: {@code first} packs the upcoming pieces, see {@link #upcoming(int, int)}.
+     */
+    static final int SPAWNED = 4;
+    /**
+     * The game is over: {@code first} is the lines, {@code second} the pieces placed and
+     * {@code value} the {@link GameEngine#stateHash()}.
+     */
+    static final int GAME_OVER = 5;
+    /**
+     * The player left a running game by restarting or quitting; fields as for {@link #GAME_OVER}.
+     */
+    static final int ENDED = 6;
+    /**
+     * {@code first} is 1 when paused and 0 when resumed, {@code second} the lines.
+     */
+    static final int PAUSED = 7;
+    /**
+     * A status text in {@code message}.
+     */
+    static final int MESSAGE = 8;
+    /**
+     * A rewind or a loaded snapshot put the game back to tick {@code tick}; {@code first} is the
+     * lines.
+     */
+    static final int REWOUND = 9;
+
+    private static final int PIECE_BITS = 4;
+
+    /**
+     * Receives one event; the arguments not used by its type are zero or null.
+     */
+    interface Handler {
+        void onEvent(int type, long tick, int first, int second, long value, Object message);
+    }
+
+    private final byte[] types;
+    private final long[] ticks;
+    private final int[] firsts;
+    private final int[] seconds;
+    private final long[] values;
+    private final Object[] messages;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private long next;
+
+    GameEventRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        types = new byte[capacity];
+        ticks = new long[capacity];
+        firsts = new int[capacity];
+        seconds = new int[capacity];
+        values = new long[capacity];
+        messages = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Packs the ordinals of up to seven upcoming pieces for a {@link #SPAWNED} event.
+     */
+    static int packUpcoming(Tetromino[] upcoming, int count) {
+        int packed = 0;
+        for (int i = 0; i < count; ++i) {
+            packed |= upcoming[i].ordinal() << (i * PIECE_BITS);
+        }
+        return packed;
+    }
+
+    /**
+     * Ordinal of the {@code index}th upcoming piece of a {@link #SPAWNED} event.
+     */
+    static int upcoming(int packed, int index) {
+        return packed >>> (index * PIECE_BITS) & ((1 << PIECE_BITS) - 1);
+    }
+
+    /**
+     * Adds an event; must only be called from the producer thread.
+     */
+    void publish(int type, long tick, int first, int second, long value, Object message) {
+        int index = (int) next & mask;
+        types[index] = (byte) type;
+        ticks[index] = tick;
+        firsts[index] = first;
+        seconds[index] = second;
+        values[index] = value;
+        messages[index] = message;
+        published.setRelease(++next);
+    }
+
+    void publish(int type, long tick, int first, int second) {
+        publish(type, tick, first, second, 0, null);
+    }
+
+    void publishMessage(String text) {
+        publish(MESSAGE, 0, 0, 0, 0, text);
+    }
+
+    /**
+     * Adds a consumer that sees the events published from now on.
+     */
+    Consumer consumer() {
+        Consumer consumer = new Consumer(published.get());
+        consumers.add(consumer);
+        return consumer;
+    }
+
+    /**
+     * Events skipped by consumers that fell a whole ring behind.
+     */
+    long getDropped() {
+        long dropped = 0;
+        for (Consumer consumer : consumers) {
+            dropped += consumer.dropped;
+        }
+        return dropped;
+    }
+
+    /**
+     * One reader's position in the ring. Each consumer must be polled from one thread at a time.
+     */
+    final class Consumer {
+        private long position;
+        private volatile long dropped;
+
+        private Consumer(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Hands every event published since the last poll to {@code handler} in order and
+         * returns how many there were.
+         */
+        int poll(Handler handler) {
+            long end = published.getAcquire();
+            int count = 0;
+            while (position < end) {
+                // the slot of the oldest event may already be taking the next one
+                if (end - position >= types.length) {
+                    skipTo(end - types.length + 1);
+                }
+                int index = (int) position & mask;
+                int type = types[index];
+                long tick = ticks[index];
+                int first = firsts[index];
+                int second = seconds[index];
+                long value = values[index];
+                Object message = messages[index];
+                // the producer may have lapped this slot while it was being read
+                VarHandle.acquireFence();
+                long latest = published.get();
+                if (latest - position >= types.length) {
+                    end = latest;
+                    continue;
+                }
+                ++position;
+                ++count;
+                handler.onEvent(type, tick, first, second, value, message);
+            }
+            return count;
+        }
+
+        /**
+         * Events this consumer missed because it fell a whole ring behind.
+         */
+        long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Drops everything published so far without counting it as missed.
+         */
+        void skip() {
+            position = published.get();
+        }
+
+        /**
+         * Unregisters this consumer for good, so that events it no longer reads are not counted
+         * as missed.
+         */
+        void close() {
+            consumers.remove(this);
+        }
+
+        private void skipTo(long oldest) {
+            dropped += oldest - position;
+            position = oldest;
+        }
+    }
+}
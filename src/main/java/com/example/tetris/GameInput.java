@@ -0,0 +1,19 @@
+package com.example.tetris;
+
+/**
+ * Player actions understood by {@link GameEngine#apply(GameInput)}.
+ */
+public enum GameInput {
+    MOVE_LEFT,
+    MOVE_RIGHT,
+    ROTATE_LEFT,
+    ROTATE_RIGHT,
+    SOFT_DROP,
+    HARD_DROP;
+
+    private static final GameInput[] VALUES = values();
+
+    public static GameInput of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.tetris;
+
+/**
+ * Receives notifications about game events raised by {@link GameEngine}.
+ */
+public interface GameListener {
+    GameListener NONE = new GameListener() {
+    };
+
+    default void pieceSpawned() {
+    }
+
+    default void pieceLocked() {
+    }
+
+    default void linesCleared(int lines, int totalLines) {
+    }
+
+    default void gameOver(int totalLines) {
+    }
+}
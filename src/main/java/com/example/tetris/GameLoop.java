@@ -0,0 +1,136 @@
+package com.example.tetris;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-timestep simulation thread that owns a {@link GameEngine}.
+ * Ticks are scheduled against {@link System#nanoTime()}: the thread parks until shortly before
+ * each deadline and spins for the remainder, which keeps the tick rate steady well below a
+ * millisecond. Other threads never touch the engine; they {@link #post(Runnable)} commands that
+ * run on the simulation thread before the next tick, and key events queued in the
+ * {@link InputProcessor} are applied right after them, so a key press takes effect on the
+ * first tick that follows it.
+ */
+public final class GameLoop implements Runnable {
+    public static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / GameEngine.TICKS_PER_SECOND;
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long MAX_LAG_NANOS = 5 * TICK_NANOS;
+
+    private final GameEngine engine;
+    private final InputProcessor input;
+    private final Runnable afterTick;
+    private Metrics metrics;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    private boolean paused;
+    private long tickNanos;
+    private Thread thread;
+
+    /**
+     * @param afterTick runs on the simulation thread after every tick, paused or not
+     */
+    public GameLoop(GameEngine engine, InputProcessor input, Runnable afterTick) {
+        this.engine = engine;
+        this.input = input;
+        this.afterTick = afterTick;
+    }
+
+    /**
+     * Records the duration of each tick, including input and the after-tick hook, in {@code metrics};
+     * must be called before {@link #start()}.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "TetrisSimulationThread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null && Thread.currentThread() != thread) {
+            try {
+                thread.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        thread = null;
+    }
+
+    /**
+     * Queues a command for the simulation thread.
+     */
+    public void post(Runnable command) {
+        commands.add(command);
+    }
+
+    /**
+     * Must be called on the simulation thread.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Must be called on the simulation thread.
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Time of the most recent tick; must be read on the simulation thread.
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime();
+        while (running) {
+            awaitDeadline(deadline);
+            tickNanos = System.nanoTime();
+            long start = metrics == null ? 0 : metrics.start();
+
+            Runnable command;
+            while ((command = commands.poll()) != null) {
+                command.run();
+            }
+            input.process(paused);
+            if (!paused) {
+                engine.tick();
+            }
+            afterTick.run();
+            if (metrics != null) {
+                metrics.tick.stop(start);
+            }
+
+            deadline += TICK_NANOS;
+            if (tickNanos - deadline > MAX_LAG_NANOS) {
+                deadline = tickNanos;
+            }
+        }
+    }
+
+    private static void awaitDeadline(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
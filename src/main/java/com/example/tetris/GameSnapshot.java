@@ -0,0 +1,103 @@
+package com.example.tetris;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Immutable copy of a complete game state, a couple of hundred bytes for a standard board in the
+ * {@link GameEngine#saveState(ByteBuffer)} format, that can be restored into any engine with the
+ * same board size and kind of piece generator or saved to a file.
+ *
+ * <p>A snapshot file is the magic number, the length-prefixed generator name and the
+ * length-prefixed state.
+ */
+public final class GameSnapshot {
+    static final int MAGIC = 0x54534E32;
+
+    private final String generator;
+    private final byte[] state;
+    private final long ticks;
+    private final int linesRemoved;
+
+    private GameSnapshot(String generator, byte[] state, long ticks, int linesRemoved) {
+        this.generator = generator;
+        this.state = state;
+        this.ticks = ticks;
+        this.linesRemoved = linesRemoved;
+    }
+
+    public static GameSnapshot capture(GameEngine engine) {
+        ByteBuffer buffer = ByteBuffer.allocate(engine.getStateBytes());
+        engine.saveState(buffer);
+        return new GameSnapshot(engine.getGenerator().name(), Arrays.copyOf(buffer.array(), buffer.position()),
+            engine.getTicks(), engine.getLinesRemoved());
+    }
+
+    /**
+     * Puts {@code engine} back into this state; its board must have the same size and its generator
+     * must be of the same kind.
+     */
+    public void restore(GameEngine engine) {
+        if (!engine.getGenerator().name().equals(generator)) {
+            throw new IllegalArgumentException("Snapshot of a '" + generator + "' game cannot be restored into a '"
+                + engine.getGenerator().name() + "' game");
+        }
+        engine.loadState(ByteBuffer.wrap(state));
+    }
+
+    public String generator() {
+        return generator;
+    }
+
+    public long ticks() {
+        return ticks;
+    }
+
+    public int linesRemoved() {
+        return linesRemoved;
+    }
+
+    /**
+     * Size of the encoded state in bytes.
+     */
+    public int size() {
+        return state.length;
+    }
+
+    public void write(Path path) throws IOException {
+        byte[] name = generator.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + name.length + state.length);
+        buffer.putInt(MAGIC).putInt(name.length).put(name).putInt(state.length).put(state);
+        Files.write(path, buffer.array());
+    }
+
+    /**
+     * Reads a snapshot file, checking that its state decodes into a game.
+     */
+    public static GameSnapshot read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a game snapshot");
+            }
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            byte[] state = new byte[buffer.getInt()];
+            buffer.get(state);
+            String generator = new String(name, StandardCharsets.US_ASCII);
+            ByteBuffer size = ByteBuffer.wrap(state);
+            GameEngine probe = new GameEngine(GameListener.NONE, PieceGenerator.forName(generator, 0),
+                size.getShort(), size.getShort());
+            probe.loadState(ByteBuffer.wrap(state));
+            return new GameSnapshot(generator, state, probe.getTicks(), probe.getLinesRemoved());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                | IllegalArgumentException e) {
+            throw new IOException("Corrupt game snapshot", e);
+        }
+    }
+}
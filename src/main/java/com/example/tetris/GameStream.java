@@ -0,0 +1,86 @@
+package com.example.tetris;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Message codes and writer of the compact game stream shared by {@link VersusLink} and the
+ * {@link MatchServer}. A stream starts with a hello carrying the seed and generator of a game.
+ * It then carries the inputs and garbage applied to that game, plus a sync every few idle ticks,
+ * each stamped with the varint tick delta since the previous message. Replaying it reproduces
+ * the game exactly.
+ */
+final class GameStream {
+    static final int PROTOCOL_VERSION = 1;
+    static final int SYNC_TICKS = 4;
+
+    static final byte HELLO = 1;
+    static final byte SYNC = 2;
+    static final byte GARBAGE = 3;
+    static final byte ATTACK = 4;
+    static final byte PING = 5;
+    static final byte PONG = 6;
+    static final byte RESULT = 7;
+    /**
+     * Inputs are sent as this code plus the {@link GameInput} ordinal.
+     */
+    static final int INPUT = 16;
+
+    private long sentTick;
+
+    static boolean isInput(int code) {
+        return code >= INPUT && code < INPUT + GameInput.values().length;
+    }
+
+    void hello(ByteBuffer out, long seed, String generator) {
+        byte[] name = generator.getBytes(StandardCharsets.US_ASCII);
+        out.put(HELLO);
+        VarInts.putVarLong(out, PROTOCOL_VERSION);
+        out.putLong(seed).put((byte) name.length).put(name);
+        sentTick = 0;
+    }
+
+    void input(ByteBuffer out, long tick, GameInput input) {
+        out.put((byte) (INPUT + input.ordinal()));
+        putTick(out, tick);
+    }
+
+    void garbage(ByteBuffer out, long tick, int lines, int hole) {
+        out.put(GARBAGE);
+        putTick(out, tick);
+        out.put((byte) lines).put((byte) hole);
+    }
+
+    /**
+     * Writes a sync if the game has run past the last message.
+     */
+    void sync(ByteBuffer out, long tick) {
+        if (tick > sentTick) {
+            out.put(SYNC);
+            putTick(out, tick);
+        }
+    }
+
+    /**
+     * Writes a sync if the stream has been idle for {@link #SYNC_TICKS}.
+     */
+    void syncIfIdle(ByteBuffer out, long tick) {
+        if (tick - sentTick >= SYNC_TICKS) {
+            sync(out, tick);
+        }
+    }
+
+    /**
+     * Ends a server match stream with whether this player won; both lose when they top out on
+     * the same tick.
+     */
+    void result(ByteBuffer out, long tick, boolean won) {
+        sync(out, tick);
+        out.put(RESULT).put((byte) (won ? 1 : 0));
+    }
+
+    private void putTick(ByteBuffer out, long tick) {
+        VarInts.putVarLong(out, tick - sentTick);
+        sentTick = tick;
+    }
+}
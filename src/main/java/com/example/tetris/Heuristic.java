@@ -0,0 +1,66 @@
+package com.example.tetris;
+
+/**
+ * Linear board evaluation used by {@link AutoPlayer}: a weighted sum of lines cleared, aggregate
+ * column height, holes and bumpiness. Higher scores are better.
+ */
+public final class Heuristic {
+    public static final Heuristic DEFAULT = new Heuristic(0.760666, -0.510066, -0.35663, -0.184483);
+
+    private final double lines;
+    private final double height;
+    private final double holes;
+    private final double bumpiness;
+
+    public Heuristic(double lines, double height, double holes, double bumpiness) {
+        this.lines = lines;
+        this.height = height;
+        this.holes = holes;
+        this.bumpiness = bumpiness;
+    }
+
+    /**
+     * Parses weights such as {@code "lines=0.8,holes=-0.5"}; weights not mentioned keep their
+     * {@link #DEFAULT} values.
+     */
+    public static Heuristic parse(String spec) {
+        double lines = DEFAULT.lines;
+        double height = DEFAULT.height;
+        double holes = DEFAULT.holes;
+        double bumpiness = DEFAULT.bumpiness;
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Bad heuristic weight: " + part);
+            }
+            double value = Double.parseDouble(pair[1].trim());
+            switch (pair[0].trim()) {
+                case "lines" -> lines = value;
+                case "height" -> height = value;
+                case "holes" -> holes = value;
+                case "bumpiness" -> bumpiness = value;
+                default -> throw new IllegalArgumentException("Unknown heuristic weight: " + pair[0]);
+            }
+        }
+        return new Heuristic(lines, height, holes, bumpiness);
+    }
+
+    public double score(SearchBoard board, int linesCleared) {
+        return scoreLines(linesCleared)
+            + height * board.aggregateHeight()
+            + holes * board.holes()
+            + bumpiness * board.bumpiness();
+    }
+
+    /**
+     * The lines-cleared term of {@link #score(SearchBoard, int)} on its own.
+     */
+    public double scoreLines(int linesCleared) {
+        return lines * linesCleared;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("lines=%s,height=%s,holes=%s,bumpiness=%s", lines, height, holes, bumpiness);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.tetris;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Turns timestamped key presses and releases into game inputs on the simulation tick.
+ * Any thread may report key events; they go through a lock-free queue and are drained at the
+ * start of the next tick, where held shifts are repeated with delayed auto-shift (DAS) and
+ * auto-repeat (ARR) counted in ticks, so holding a key moves the piece at the same speed on
+ * every machine regardless of the OS key repeat rate.
+ */
+public final class InputProcessor {
+    public static final int DEFAULT_DAS_TICKS = 10;
+    public static final int DEFAULT_ARR_TICKS = 2;
+    private static final int SOFT_DROP_TICKS = 2;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long PRESSED = 1;
+    private static final int INPUT_SHIFT = 1;
+    private static final long TAP = 1 << 4;
+    private static final long TIMESTAMP_MASK = ~0x1FL;
+    /**
+     * Some platforms report OS key repeat as a release immediately followed by a press; such
+     * pairs are ignored so they do not restart DAS.
+     */
+    private static final long AUTO_REPEAT_GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final GameInput[] INPUTS = GameInput.values();
+
+    private final MpscLongQueue events = new MpscLongQueue(QUEUE_CAPACITY);
+    private final Predicate<GameInput> action;
+    private final int dasTicks;
+    private final int arrTicks;
+    private final boolean reportStats;
+    private final boolean[] held = new boolean[INPUTS.length];
+    private final long[] releasedNanos = new long[INPUTS.length];
+    private final Distribution latencyMicros = new Distribution();
+    private final LongConsumer handler = this::handle;
+    private GameInput shift;
+    private int shiftTicks;
+    private int releasedShiftTicks;
+    private int softDropTicks;
+    private boolean paused;
+    private long lastReport = System.nanoTime();
+
+    /**
+     * @param action applies an input to the game on the simulation thread
+     * @param arrTicks ticks between repeated shifts, or 0 to shift to the wall at once
+     */
+    public InputProcessor(Predicate<GameInput> action, int dasTicks, int arrTicks, boolean reportStats) {
+        this.action = action;
+        this.dasTicks = Math.max(1, dasTicks);
+        this.arrTicks = Math.max(0, arrTicks);
+        this.reportStats = reportStats;
+    }
+
+    public void press(GameInput input) {
+        events.offer(encode(input, PRESSED));
+    }
+
+    public void release(GameInput input) {
+        events.offer(encode(input, 0));
+    }
+
+    /**
+     * Queues a single press and release of {@code input}, as a bot would send it: it is applied
+     * once on the next tick and never repeats or changes which keys are held.
+     */
+    public void tap(GameInput input) {
+        events.offer(encode(input, TAP));
+    }
+
+    private static long encode(GameInput input, long pressed) {
+        return (System.nanoTime() & TIMESTAMP_MASK) | ((long) input.ordinal() << INPUT_SHIFT) | pressed;
+    }
+
+    /**
+     * Applies queued events and held-key repeats; runs on the simulation thread before each tick.
+     * While paused, events only update which keys are held.
+     */
+    public void process(boolean paused) {
+        this.paused = paused;
+        if (!paused) {
+            repeatHeld();
+        }
+        events.drain(handler);
+
+        if (reportStats) {
+            long now = System.nanoTime();
+            if (now - lastReport >= REPORT_INTERVAL_NANOS) {
+                System.err.println("input latency (us): " + latencyMicros);
+                latencyMicros.reset();
+                lastReport = now;
+            }
+        }
+    }
+
+    private void repeatHeld() {
+        if (shift != null && ++shiftTicks >= dasTicks) {
+            if (arrTicks == 0) {
+                while (action.test(shift)) {
+                    // shift to the wall
+                }
+            } else if ((shiftTicks - dasTicks) % arrTicks == 0) {
+                action.test(shift);
+            }
+        }
+        if (held[GameInput.SOFT_DROP.ordinal()] && ++softDropTicks % SOFT_DROP_TICKS == 0) {
+            action.test(GameInput.SOFT_DROP);
+        }
+    }
+
+    private void handle(long event) {
+        GameInput input = INPUTS[(int) (event >>> INPUT_SHIFT) & 0x7];
+        long nanos = event & TIMESTAMP_MASK;
+        int index = input.ordinal();
+        if ((event & TAP) != 0) {
+            if (!paused) {
+                action.test(input);
+            }
+            return;
+        }
+        if ((event & PRESSED) == 0) {
+            held[index] = false;
+            releasedNanos[index] = nanos;
+            if (input == shift) {
+                releasedShiftTicks = shiftTicks;
+                shift = opposite(input);
+                shiftTicks = 0;
+            }
+            return;
+        }
+
+        if (held[index]) {
+            return;
+        }
+        held[index] = true;
+        if (releasedNanos[index] != 0 && nanos - releasedNanos[index] < AUTO_REPEAT_GAP_NANOS) {
+            if (input == GameInput.MOVE_LEFT || input == GameInput.MOVE_RIGHT) {
+                shift = input;
+                shiftTicks = releasedShiftTicks;
+            }
+            return;
+        }
+
+        if (input == GameInput.MOVE_LEFT || input == GameInput.MOVE_RIGHT) {
+            shift = input;
+            shiftTicks = 0;
+        } else if (input == GameInput.SOFT_DROP) {
+            softDropTicks = 0;
+        }
+        if (!paused) {
+            action.test(input);
+            latencyMicros.record((System.nanoTime() - nanos) / 1000);
+        }
+    }
+
+    private GameInput opposite(GameInput input) {
+        GameInput other = input == GameInput.MOVE_LEFT ? GameInput.MOVE_RIGHT : GameInput.MOVE_LEFT;
+        return held[other.ordinal()] ? other : null;
+    }
+
+    /**
+     * Time from key press to its effect on the game; read on the simulation thread.
+     */
+    public Distribution getLatencyMicros() {
+        return latencyMicros;
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.tetris;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a {@link MatchServer} with thousands of simulated clients over loopback, all on one
+ * selector thread ticking at the game rate. Each client presses random keys a few times a second,
+ * reads and discards its game stream, and reconnects for a new match when the server closes the
+ * old one.
+ *
+ * <p>With {@code --embedded} the server runs in the same process and the load is stepped up
+ * through the given match counts. After a warm-up at each step, the server's tick lateness is
+ * measured, and the ramp stops at the first step whose 99th percentile exceeds the budget, by
+ * default half a tick.
+ */
+public final class LoadGenerator {
+    private static final int CONNECTS_PER_TICK = 200;
+    private static final double INPUTS_PER_SECOND = 3;
+    private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Selector selector;
+    private final InetSocketAddress address;
+    private final List<Client> clients = new ArrayList<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(16 * 1024);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(1);
+    private final SplittableRandom random = new SplittableRandom(1);
+    private long bytesIn;
+    private long bytesOut;
+    private long reconnects;
+    private long deadline = System.nanoTime();
+
+    public LoadGenerator(InetSocketAddress address) throws IOException {
+        this.address = address;
+        selector = Selector.open();
+    }
+
+    /**
+     * Connects or disconnects clients until {@code matches} matches' worth are running.
+     */
+    public void setMatches(int matches) {
+        while (clients.size() > 2 * matches) {
+            clients.remove(clients.size() - 1).close();
+        }
+        while (clients.size() < 2 * matches) {
+            clients.add(new Client());
+        }
+    }
+
+    /**
+     * Runs the clients at the game's tick rate for {@code nanos}.
+     */
+    public void run(long nanos) throws IOException {
+        long end = System.nanoTime() + nanos;
+        while (deadline - end < 0) {
+            TickWheel.parkUntil(deadline);
+            tick();
+            deadline += GameLoop.TICK_NANOS;
+            long now = System.nanoTime();
+            if (now - deadline > GameLoop.TICK_NANOS) {
+                deadline = now;
+            }
+        }
+    }
+
+    private void tick() throws IOException {
+        selector.selectNow();
+        for (SelectionKey key : selector.selectedKeys()) {
+            Client client = (Client) key.attachment();
+            if (key.isValid() && key.isConnectable()) {
+                client.connected(key);
+            } else if (key.isValid() && key.isReadable()) {
+                client.read();
+            }
+        }
+        selector.selectedKeys().clear();
+
+        int connects = 0;
+        double pressChance = INPUTS_PER_SECOND / GameEngine.TICKS_PER_SECOND;
+        for (Client client : clients) {
+            if (client.channel == null) {
+                if (connects < CONNECTS_PER_TICK) {
+                    client.connect();
+                    ++connects;
+                }
+            } else if (client.connected && random.nextDouble() < pressChance) {
+                client.press(random.nextInt(GameInput.values().length));
+            }
+        }
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    public void close() throws IOException {
+        setMatches(0);
+        selector.close();
+    }
+
+    private final class Client {
+        private SocketChannel channel;
+        private boolean connected;
+
+        private void connect() {
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (channel.connect(address)) {
+                    connected = true;
+                    channel.register(selector, SelectionKey.OP_READ, this);
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, this);
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void connected(SelectionKey key) {
+            try {
+                channel.finishConnect();
+                connected = true;
+                key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void read() {
+            try {
+                // one read per readiness; anything left over is selected again next tick
+                int count = channel.read(readBuffer.clear());
+                if (count > 0) {
+                    bytesIn += count;
+                } else if (count < 0) {
+                    close();
+                    ++reconnects;
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void press(int input) {
+            try {
+                bytesOut += channel.write(writeBuffer.clear().put((byte) (GameStream.INPUT + input)).flip());
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // reconnected on the next tick
+                }
+            }
+            channel = null;
+            connected = false;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = "localhost";
+        int port = 7777;
+        String matchCounts = "250,500,1000,2000,4000";
+        int seconds = 10;
+        double budgetMillis = GameLoop.TICK_NANOS / 2 / 1e6;
+        boolean embedded = false;
+        int slots = 16;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String scoresPath = null;
+
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--host" -> host = args[++i];
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--matches" -> matchCounts = args[++i];
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--budget-ms" -> budgetMillis = Double.parseDouble(args[++i]);
+                case "--embedded" -> embedded = true;
+                case "--slots" -> slots = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--scores" -> scoresPath = args[++i];
+                default -> {
+                    System.err.println("Usage: LoadGenerator [--embedded [--slots S] [--threads T] [--scores FILE]]"
+                        + " [--host H] [--port P] [--matches N,N,...] [--seconds S] [--budget-ms B]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        MatchServer server = null;
+        if (embedded) {
+            TickWheel wheel = new TickWheel(slots, threads > 1 ? new ForkJoinPool(threads) : null);
+            server = new MatchServer(0, "bag", wheel);
+            if (scoresPath != null) {
+                server.setScores(new ScoreStore(Path.of(scoresPath)));
+            }
+            server.start();
+            host = "localhost";
+            port = server.getPort();
+        }
+        LoadGenerator load = new LoadGenerator(new InetSocketAddress(host, port));
+        long measureNanos = TimeUnit.SECONDS.toNanos(seconds);
+        Distribution lateness = new Distribution();
+
+        for (String count : matchCounts.split(",")) {
+            int matches = Integer.parseInt(count.trim());
+            load.setMatches(matches);
+            load.run(WARMUP_NANOS);
+            if (server != null) {
+                server.getWheel().drainLateness(new Distribution());
+            }
+            long lagResets = server != null ? server.getWheel().getLagResets() : 0;
+            long in = load.getBytesIn();
+            long out = load.getBytesOut();
+            long reconnects = load.getReconnects();
+            load.run(measureNanos);
+
+            System.out.printf("%d matches: in %.0f B/s, out %.0f B/s, %d rematches", matches,
+                (load.getBytesIn() - in) / (double) seconds, (load.getBytesOut() - out) / (double) seconds,
+                (load.getReconnects() - reconnects) / 2);
+            if (server == null) {
+                System.out.println();
+                continue;
+            }
+            lateness.reset();
+            server.getWheel().drainLateness(lateness);
+            double p99Millis = lateness.percentile(0.99) / 1000.0;
+            System.out.printf(", %d on wheel, lag resets %d, tick lateness p50 %.2f ms, p99 %.2f ms,"
+                    + " max %.2f ms%n",
+                server.getWheel().size(), server.getWheel().getLagResets() - lagResets,
+                lateness.percentile(0.5) / 1000.0, p99Millis, lateness.max() / 1000.0);
+            if (p99Millis > budgetMillis) {
+                System.out.printf("p99 lateness over the %.1f ms budget%n", budgetMillis);
+                break;
+            }
+        }
+        load.close();
+        if (server != null) {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.tetris;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless tournament server that runs many authoritative two-player matches at once.
+ * Clients only send inputs, one {@link GameStream} input code per byte. The server pairs
+ * connections into {@link ServerMatch}es in arrival order and ticks all matches on one shared
+ * {@link TickWheel}. Each game is streamed back to its player and ends with the result, after
+ * which the connection is closed. A single selector thread accepts connections and reads inputs;
+ * ticking and writing happen on the wheel. With a {@link ScoreStore} the selector thread also adds
+ * every finished game to the high scores in the mode {@code versus/<generator>}.
+ */
+public final class MatchServer implements Runnable, Closeable {
+    private static final int READ_BYTES = 4 * 1024;
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final TickWheel wheel;
+    private final String generator;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BYTES);
+    private final SplittableRandom seeds = new SplittableRandom();
+    private final LongAdder bytesOut = new LongAdder();
+    private final Queue<ServerMatch.Player> finished = new ConcurrentLinkedQueue<>();
+    private ScoreStore scores;
+    private volatile long bytesIn;
+    private volatile long matchesStarted;
+    private ServerMatch.Player waiting;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param port port to listen on, or 0 for any free port
+     */
+    public MatchServer(int port, String generator, TickWheel wheel) throws IOException {
+        this.generator = generator;
+        this.wheel = wheel;
+        PieceGenerator.forName(generator, 0); // fails fast on an unknown name
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Keeps the results of matches started from now on in {@code scores}.
+     */
+    public void setScores(ScoreStore scores) {
+        this.scores = scores;
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        wheel.start();
+        thread = new Thread(this, "TetrisServerSelector");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(100);
+            } catch (IOException e) {
+                System.err.println("Selector failed: " + e.getMessage());
+                return;
+            }
+            for (SelectionKey key : selector.selectedKeys()) {
+                if (key.isValid() && key.isAcceptable()) {
+                    accept();
+                } else if (key.isValid() && key.isReadable()) {
+                    read(key);
+                }
+            }
+            selector.selectedKeys().clear();
+            addScores();
+        }
+    }
+
+    private void addScores() {
+        String mode = "versus/" + generator;
+        ServerMatch.Player player;
+        while ((player = finished.poll()) != null) {
+            try {
+                player.addScore(scores, mode);
+            } catch (IOException e) {
+                System.err.println("Failed to save a score: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        try {
+            while ((channel = server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                ServerMatch.Player player = new ServerMatch.Player(channel);
+                channel.register(selector, SelectionKey.OP_READ, player);
+                pair(player);
+            }
+        } catch (IOException e) {
+            System.err.println("Accept failed: " + e.getMessage());
+        }
+    }
+
+    private void pair(ServerMatch.Player player) {
+        if (waiting == null || waiting.isDisconnected()) {
+            waiting = player;
+            return;
+        }
+        wheel.add(new ServerMatch(waiting, player, seeds.nextLong(), generator, bytesOut,
+            scores != null ? finished : null));
+        ++matchesStarted;
+        waiting = null;
+    }
+
+    private void read(SelectionKey key) {
+        ServerMatch.Player player = (ServerMatch.Player) key.attachment();
+        try {
+            // one read per readiness: the selector reports the channel again if more is left
+            int count = player.channel.read(readBuffer.clear());
+            for (int i = 0; i < count; ++i) {
+                int code = readBuffer.get(i);
+                if (!GameStream.isInput(code)) {
+                    throw new IOException("unexpected code " + code);
+                }
+                player.inputs.offer(code - GameStream.INPUT);
+            }
+            bytesIn += Math.max(count, 0);
+            if (count < 0) {
+                throw new IOException("closed by client");
+            }
+        } catch (IOException e) {
+            player.disconnect();
+            key.cancel();
+            try {
+                player.channel.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+        }
+    }
+
+    public long getMatchesStarted() {
+        return matchesStarted;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public TickWheel getWheel() {
+        return wheel;
+    }
+
+    /**
+     * Stops accepting and reading, waits for the selector thread, then saves the scores it had not
+     * added yet and closes the store.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread selectorThread;
+        synchronized (this) {
+            running = false;
+            selectorThread = thread;
+            thread = null;
+        }
+        wheel.stop();
+        selector.wakeup();
+        if (selectorThread != null && Thread.currentThread() != selectorThread) {
+            try {
+                selectorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the selector thread");
+            }
+        }
+        server.close();
+        if (scores != null) {
+            addScores();
+            scores.close();
+        }
+        selector.close();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7777;
+        int slots = 16;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String generatorName = "bag";
+        String scoresPath = null;
+
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--slots" -> slots = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--generator" -> generatorName = args[++i];
+                case "--scores" -> scoresPath = args[++i];
+                default -> {
+                    System.err.println("Usage: MatchServer [--port P] [--slots S] [--threads T]"
+                        + " [--generator uniform|bag] [--scores FILE]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        TickWheel wheel = new TickWheel(slots, threads > 1 ? new ForkJoinPool(threads) : null);
+        MatchServer server = new MatchServer(port, generatorName, wheel);
+        if (scoresPath != null) {
+            server.setScores(new ScoreStore(Path.of(scoresPath)));
+        }
+        server.start();
+        System.out.printf("listening on %d, %d wheel slots, %d threads%n", server.getPort(), slots, threads);
+
+        Distribution lateness = new Distribution();
+        long lastIn = 0;
+        long lastOut = 0;
+        while (true) {
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(REPORT_INTERVAL_NANOS));
+            lateness.reset();
+            wheel.drainLateness(lateness);
+            long in = server.getBytesIn();
+            long out = server.getBytesOut();
+            double seconds = REPORT_INTERVAL_NANOS / 1e9;
+            System.out.printf("%d matches (%d started), in %.0f B/s, out %.0f B/s, lag resets %d,"
+                    + " tick lateness (us): %s%n",
+                wheel.size(), server.getMatchesStarted(), (in - lastIn) / seconds, (out - lastOut) / seconds,
+                wheel.getLagResets(), lateness);
+            lastIn = in;
+            lastOut = out;
+        }
+    }
+}
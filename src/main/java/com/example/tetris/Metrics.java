@@ -0,0 +1,315 @@
+package com.example.tetris;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Run-time counters and latency histograms for the game, exposed through JMX and the debug
+ * overlay. Collection is off until the MBean's {@code Enabled} attribute is set or the overlay is
+ * shown; while off, every probe is a single volatile read.
+ */
+public final class Metrics implements MetricsMXBean {
+    public static final String OBJECT_NAME = "com.example.tetris:type=Metrics";
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long EVENT_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    final Timer tick = new Timer();
+    final Timer paint = new Timer();
+    final Timer lineClear = new Timer();
+    final Timer audioMix = new Timer();
+    final StartupTimes startup;
+    private final LongAdder tryMoves = new LongAdder();
+    private final LongAdder piecesLocked = new LongAdder();
+    private final LongAdder audioUnderruns = new LongAdder();
+    private final GameEventRing.Handler countEvent = (type, tick, first, second, value, message) -> {
+        if (type == GameEventRing.LOCKED) {
+            piecesLocked.increment();
+        }
+    };
+    private final Rate tryMoveRate = new Rate(tryMoves::sum);
+    private final Rate pieceRate = new Rate(this::countPiecesLocked);
+    private final Rate allocationRate = new Rate(Metrics::allocatedBytes);
+    private volatile TranspositionTable searchCache;
+    private GameEventRing events;
+    private GameEventRing.Consumer eventConsumer;
+    private volatile boolean collecting;
+    private boolean enabled;
+    private boolean overlayVisible;
+
+    public Metrics() {
+        this(new StartupTimes(false));
+    }
+
+    /**
+     * @param startup milestones of this run's start, reported through JMX
+     */
+    Metrics(StartupTimes startup) {
+        this.startup = startup;
+    }
+
+    /**
+     * Registers this instance with the platform MBean server; failures only disable JMX access.
+     * Starting the platform server takes a few hundred milliseconds, so the game calls this off
+     * the startup path.
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            startup.mark(StartupTimes.Milestone.MBEAN_REGISTERED);
+        } catch (JMException e) {
+            System.err.println("Metrics MBean not registered: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        collecting = enabled || overlayVisible;
+    }
+
+    public synchronized boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    public synchronized void setOverlayVisible(boolean visible) {
+        overlayVisible = visible;
+        collecting = enabled || visible;
+    }
+
+    /**
+     * Returns the start time for a {@link Timer#stop(long)} call, or 0 when not collecting.
+     */
+    public long start() {
+        return collecting ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Counts locked pieces from the game's events, read in batches by a thread of its own and
+     * skipped while not collecting.
+     */
+    synchronized void follow(GameEventRing ring) {
+        events = ring;
+        eventConsumer = ring.consumer();
+        Thread thread = new Thread(() -> {
+            while (true) {
+                LockSupport.parkNanos(EVENT_POLL_NANOS);
+                countPiecesLocked();
+            }
+        }, "TetrisMetricsEvents");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private synchronized long countPiecesLocked() {
+        if (eventConsumer != null) {
+            if (collecting) {
+                eventConsumer.poll(countEvent);
+            } else {
+                eventConsumer.skip();
+            }
+        }
+        return piecesLocked.sum();
+    }
+
+    /**
+     * Sets the autoplayer's transposition table to report on, or null if there is none.
+     */
+    public void setSearchCache(TranspositionTable cache) {
+        searchCache = cache;
+    }
+
+    public void countTryMove() {
+        if (collecting) {
+            tryMoves.increment();
+        }
+    }
+
+    public void countAudioUnderrun() {
+        if (collecting) {
+            audioUnderruns.increment();
+        }
+    }
+
+    @Override
+    public double getTickP50Micros() {
+        return tick.percentileMicros(0.5);
+    }
+
+    @Override
+    public double getTickP99Micros() {
+        return tick.percentileMicros(0.99);
+    }
+
+    @Override
+    public double getTickMaxMicros() {
+        return tick.percentileMicros(1.0);
+    }
+
+    @Override
+    public double getPaintP50Micros() {
+        return paint.percentileMicros(0.5);
+    }
+
+    @Override
+    public double getPaintP99Micros() {
+        return paint.percentileMicros(0.99);
+    }
+
+    @Override
+    public double getPaintMaxMicros() {
+        return paint.percentileMicros(1.0);
+    }
+
+    @Override
+    public double getLineClearP99Micros() {
+        return lineClear.percentileMicros(0.99);
+    }
+
+    @Override
+    public double getAudioMixP99Micros() {
+        return audioMix.percentileMicros(0.99);
+    }
+
+    @Override
+    public long getAudioUnderruns() {
+        return audioUnderruns.sum();
+    }
+
+    @Override
+    public long getTryMoveCalls() {
+        return tryMoves.sum();
+    }
+
+    @Override
+    public long getPiecesLocked() {
+        return countPiecesLocked();
+    }
+
+    @Override
+    public long getFirstFrameMillis() {
+        return startup.millis(StartupTimes.Milestone.FIRST_FRAME);
+    }
+
+    @Override
+    public long getFirstPlayableTickMillis() {
+        return startup.millis(StartupTimes.Milestone.FIRST_TICK);
+    }
+
+    @Override
+    public synchronized long getEventsLost() {
+        return events == null ? 0 : events.getDropped();
+    }
+
+    @Override
+    public double getTryMovesPerSecond() {
+        return tryMoveRate.perSecond();
+    }
+
+    @Override
+    public double getPiecesPerSecond() {
+        return pieceRate.perSecond();
+    }
+
+    @Override
+    public double getAllocatedBytesPerSecond() {
+        return allocationRate.perSecond();
+    }
+
+    @Override
+    public double getSearchCacheHitRate() {
+        TranspositionTable cache = searchCache;
+        return cache == null ? 0 : cache.getHitRate();
+    }
+
+    @Override
+    public long getSearchCacheBytes() {
+        TranspositionTable cache = searchCache;
+        return cache == null ? 0 : cache.getBytes();
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean sunThreads)
+                || !sunThreads.isThreadAllocatedMemoryEnabled()) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : sunThreads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    /**
+     * Latency histogram that keeps the last complete one-second window for readers.
+     * Each timer is expected to be recorded from one thread at a time.
+     */
+    public static final class Timer {
+        private Distribution current = new Distribution();
+        private Distribution previous = new Distribution();
+        private long windowStart = System.nanoTime();
+
+        /**
+         * Records the time since {@code startNanos} as returned by {@link Metrics#start()}.
+         */
+        public void stop(long startNanos) {
+            if (startNanos != 0) {
+                record(System.nanoTime(), startNanos);
+            }
+        }
+
+        private synchronized void record(long now, long startNanos) {
+            current.record(Math.max(0, now - startNanos));
+            if (now - windowStart >= WINDOW_NANOS) {
+                Distribution done = current;
+                current = previous;
+                previous = done;
+                current.reset();
+                windowStart = now;
+            }
+        }
+
+        synchronized double percentileMicros(double fraction) {
+            return previous.percentile(fraction) / 1000.0;
+        }
+    }
+
+    /**
+     * Per-second rate of a growing value, measured between successive reads at least a second
+     * apart. A decrease, such as allocations of exited threads dropping out of the sum, reads as 0.
+     */
+    private static final class Rate {
+        private final LongSupplier source;
+        private long lastValue;
+        private long lastNanos;
+        private double perSecond;
+
+        Rate(LongSupplier source) {
+            this.source = source;
+            lastValue = source.getAsLong();
+            lastNanos = System.nanoTime();
+        }
+
+        synchronized double perSecond() {
+            long now = System.nanoTime();
+            if (now - lastNanos >= WINDOW_NANOS) {
+                long value = source.getAsLong();
+                perSecond = Math.max(0, value - lastValue) * 1e9 / (now - lastNanos);
+                lastValue = value;
+                lastNanos = now;
+            }
+            return perSecond;
+        }
+    }
+}
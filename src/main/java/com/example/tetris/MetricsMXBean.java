@@ -0,0 +1,60 @@
+package com.example.tetris;
+
+/**
+ * JMX view of {@link Metrics}. Latencies cover the last complete one-second window.
+ */
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    double getTickP50Micros();
+
+    double getTickP99Micros();
+
+    double getTickMaxMicros();
+
+    double getPaintP50Micros();
+
+    double getPaintP99Micros();
+
+    double getPaintMaxMicros();
+
+    double getLineClearP99Micros();
+
+    double getAudioMixP99Micros();
+
+    long getAudioUnderruns();
+
+    long getTryMoveCalls();
+
+    long getPiecesLocked();
+
+    /**
+     * Game events that a consumer of the event ring missed because it fell too far behind.
+     */
+    long getEventsLost();
+
+    double getTryMovesPerSecond();
+
+    double getPiecesPerSecond();
+
+    double getAllocatedBytesPerSecond();
+
+    /**
+     * Fraction of autoplayer lookahead probes answered by its transposition table.
+     */
+    double getSearchCacheHitRate();
+
+    long getSearchCacheBytes();
+
+    /**
+     * Milliseconds from the JVM launch to the first painted frame, or -1 before it.
+     */
+    long getFirstFrameMillis();
+
+    /**
+     * Milliseconds from the JVM launch to the first tick of a running game, or -1 before it.
+     */
+    long getFirstPlayableTickMillis();
+}
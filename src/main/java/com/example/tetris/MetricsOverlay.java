@@ -0,0 +1,68 @@
+package com.example.tetris;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws the current {@link Metrics} as text over the top-left corner of the board.
+ * The text is refreshed a few times per second; instances are confined to one painting thread.
+ */
+final class MetricsOverlay {
+    private static final Color BACKGROUND = new Color(0, 0, 0, 160);
+    private static final int PADDING = 4;
+    private static final long REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    static final int WIDTH = 190;
+    static final int LINES = 8;
+
+    private final Metrics metrics;
+    private final String[] lines = new String[LINES];
+    private long refreshedNanos;
+
+    MetricsOverlay(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    static int height(Graphics g) {
+        return LINES * g.getFontMetrics().getHeight() + 2 * PADDING;
+    }
+
+    void paint(Graphics g) {
+        if (!metrics.isOverlayVisible()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (lines[0] == null || now - refreshedNanos >= REFRESH_NANOS) {
+            refresh();
+            refreshedNanos = now;
+        }
+
+        FontMetrics font = g.getFontMetrics();
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, WIDTH, height(g));
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < LINES; ++i) {
+            g.drawString(lines[i], PADDING, PADDING + font.getAscent() + i * font.getHeight());
+        }
+    }
+
+    private void refresh() {
+        String[] text = {
+            String.format("tick  %.0f / %.0f / %.0f us", metrics.getTickP50Micros(),
+                metrics.getTickP99Micros(), metrics.getTickMaxMicros()),
+            String.format("paint %.0f / %.0f / %.0f us", metrics.getPaintP50Micros(),
+                metrics.getPaintP99Micros(), metrics.getPaintMaxMicros()),
+            String.format("clear p99 %.0f us", metrics.getLineClearP99Micros()),
+            String.format("audio p99 %.0f us, underruns %d", metrics.getAudioMixP99Micros(),
+                metrics.getAudioUnderruns()),
+            String.format("tryMove %.0f/s", metrics.getTryMovesPerSecond()),
+            String.format("pieces %.2f/s, events lost %d", metrics.getPiecesPerSecond(),
+                metrics.getEventsLost()),
+            String.format("alloc %.1f MB/s", metrics.getAllocatedBytesPerSecond() / (1 << 20)),
+            String.format("ai cache %.1f%% hits, %d MB", 100 * metrics.getSearchCacheHitRate(),
+                metrics.getSearchCacheBytes() >> 20)
+        };
+        System.arraycopy(text, 0, lines, 0, LINES);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.tetris;
+
+import java.util.SplittableRandom;
+
+/**
+ * Strategy that steers a freshly spawned piece in headless play.
+ * The policy may move, rotate or drop the piece; whatever it leaves falling is then
+ * carried down by gravity and locked by the engine ticks.
+ */
+@FunctionalInterface
+public interface MovePolicy {
+    void play(GameEngine engine, SplittableRandom random);
+
+    /**
+     * Returns the policy called {@code name}: {@code random}, {@code gravity}, or {@code ai} for
+     * the {@link AutoPlayer} with default weights, optionally with lookahead as in {@code ai:1}.
+     * With lookahead, all games played through the returned policy share one transposition table.
+     */
+    static MovePolicy forName(String name) {
+        if (name.equals("ai") || name.startsWith("ai:")) {
+            int lookahead = name.equals("ai") ? 0 : Integer.parseInt(name.substring(3));
+            return new AutoPlayer(Heuristic.DEFAULT, lookahead, null,
+                lookahead > 0 ? new TranspositionTable(TranspositionTable.DEFAULT_MEGABYTES) : null);
+        }
+        return switch (name) {
+            case "random" -> new RandomPolicy();
+            case "gravity" -> (engine, random) -> {
+            };
+            default -> throw new IllegalArgumentException("Unknown policy: " + name);
+        };
+    }
+}
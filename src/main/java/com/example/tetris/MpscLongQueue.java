@@ -0,0 +1,71 @@
+package com.example.tetris;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer queue of {@code long} values.
+ * Each slot carries a sequence number that tells producers when it is free and the consumer when
+ * it is filled, so offering and draining never lock or allocate. Offers fail when the queue is full.
+ */
+final class MpscLongQueue {
+    private final long[] values;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final int mask;
+    private long head;
+
+    MpscLongQueue(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        values = new long[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Appends {@code value}; safe to call from any thread. Returns false if the queue is full.
+     */
+    boolean offer(long value) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence < position) {
+                return false;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                values[index] = value;
+                sequences.set(index, position + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Passes every value queued before the call to {@code consumer} in order and returns how many
+     * there were. Values the consumer offers itself are left for the next drain.
+     * Must only be called from the consumer thread.
+     */
+    int drain(LongConsumer consumer) {
+        long end = tail.get();
+        int drained = 0;
+        while (head < end) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                return drained;
+            }
+            long value = values[index];
+            sequences.set(index, head + values.length);
+            ++head;
+            ++drained;
+            consumer.accept(value);
+        }
+        return drained;
+    }
+}
@@ -1,39 +1,67 @@
 package com.example.tetris;
 
-import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 /**
- * Panel that renders a preview of the upcoming tetromino.
+ * Panel that renders a preview of the upcoming tetromino. It follows the spawn events of the game's
+ * {@link GameEventRing} on the event dispatch thread.
  */
 public final class NextPiecePanel extends JPanel {
     private static final int CELL_SIZE = 20;
-    private static final Color[] COLORS = {
-        new Color(0, 0, 0),
-        new Color(204, 102, 102),
-        new Color(102, 204, 102),
-        new Color(102, 102, 204),
-        new Color(204, 204, 102),
-        new Color(204, 102, 204),
-        new Color(102, 204, 204),
-        new Color(218, 170, 0)
-    };
+    private static final int PREVIEW_COUNT = 3;
+    private static final int SLOT_SIZE = CELL_SIZE * 4;
+    private static final int POLL_MILLIS = 16;
+    private static final Tetromino[] PIECES = Tetromino.values();
 
-    private Shape preview;
+    private final Tetromino[] previews = new Tetromino[PREVIEW_COUNT];
+    private final TileSprites sprites;
+    private final Tetromino[] upcoming = new Tetromino[PREVIEW_COUNT];
+    private final GameEventRing.Handler onEvent = this::onEvent;
+    private GameEventRing.Consumer events;
+    private int spawned = -1;
 
-    public NextPiecePanel() {
-        setPreferredSize(new Dimension(CELL_SIZE * 4 + 16, CELL_SIZE * 4 + 16));
+    public NextPiecePanel(TileSprites sprites) {
+        this.sprites = sprites;
+        setPreferredSize(new Dimension(SLOT_SIZE + 16, SLOT_SIZE * PREVIEW_COUNT + 16));
         setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
     }
 
-    public void setPreview(Shape shape) {
-        if (shape == null) {
-            preview = null;
-        } else {
-            preview = shape.copy();
+    /**
+     * Starts showing the pieces that come after each piece spawned in the game publishing to
+     * {@code ring}.
+     */
+    void follow(GameEventRing ring) {
+        events = ring.consumer();
+        new Timer(POLL_MILLIS, e -> poll()).start();
+    }
+
+    private void poll() {
+        events.poll(onEvent);
+        if (spawned >= 0) {
+            for (int i = 0; i < PREVIEW_COUNT; ++i) {
+                upcoming[i] = PIECES[GameEventRing.upcoming(spawned, i)];
+            }
+            spawned = -1;
+            setPreview(upcoming);
+        }
+    }
+
+    private void onEvent(int type, long tick, int first, int second, long value, Object message) {
+        if (type == GameEventRing.SPAWNED) {
+            spawned = first;
+        }
+    }
+
+    /**
+     * Shows {@code upcoming} in order, or clears the preview when it is null.
+     */
+    public void setPreview(Tetromino[] upcoming) {
+        for (int i = 0; i < PREVIEW_COUNT; ++i) {
+            previews[i] = upcoming == null || i >= upcoming.length ? null : upcoming[i];
         }
         repaint();
     }
@@ -42,40 +70,29 @@ public final class NextPiecePanel extends JPanel {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        if (preview == null || preview.getShape() == Tetromino.NO_SHAPE) {
-            return;
+        int slotTop = (getHeight() - SLOT_SIZE * PREVIEW_COUNT) / 2;
+        for (int i = 0; i < PREVIEW_COUNT; ++i) {
+            if (previews[i] != null && previews[i] != Tetromino.NO_SHAPE) {
+                drawPiece(g, Shape.of(previews[i]), slotTop + i * SLOT_SIZE);
+            }
         }
+    }
 
-        int minX = preview.x(0);
-        int maxX = preview.x(0);
-        int minY = preview.y(0);
-        int maxY = preview.y(0);
-
-        for (int i = 1; i < 4; ++i) {
-            minX = Math.min(minX, preview.x(i));
-            maxX = Math.max(maxX, preview.x(i));
-            minY = Math.min(minY, preview.y(i));
-            maxY = Math.max(maxY, preview.y(i));
-        }
+    private void drawPiece(Graphics g, Shape preview, int slotTop) {
+        int minX = preview.minX();
+        int maxX = preview.maxX();
+        int minY = preview.minY();
+        int maxY = preview.maxY();
 
         int pieceWidth = (maxX - minX + 1) * CELL_SIZE;
         int pieceHeight = (maxY - minY + 1) * CELL_SIZE;
         int offsetX = (getWidth() - pieceWidth) / 2 - minX * CELL_SIZE;
-        int offsetY = (getHeight() - pieceHeight) / 2 - minY * CELL_SIZE;
-
-        Color color = COLORS[preview.getShape().ordinal()];
+        int offsetY = slotTop + (SLOT_SIZE - pieceHeight) / 2 - minY * CELL_SIZE;
 
         for (int i = 0; i < 4; ++i) {
             int x = preview.x(i) * CELL_SIZE + offsetX;
             int y = preview.y(i) * CELL_SIZE + offsetY;
-            g.setColor(color);
-            g.fillRect(x + 1, y + 1, CELL_SIZE - 2, CELL_SIZE - 2);
-            g.setColor(color.brighter());
-            g.drawLine(x, y + CELL_SIZE - 1, x, y);
-            g.drawLine(x, y, x + CELL_SIZE - 1, y);
-            g.setColor(color.darker());
-            g.drawLine(x + 1, y + CELL_SIZE - 1, x + CELL_SIZE - 1, y + CELL_SIZE - 1);
-            g.drawLine(x + CELL_SIZE - 1, y + CELL_SIZE - 1, x + CELL_SIZE - 1, y + 1);
+            sprites.draw(g, preview.getShape(), x, y, CELL_SIZE, CELL_SIZE);
         }
     }
 }
@@ -0,0 +1,35 @@
+package com.example.tetris;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import javax.swing.JPanel;
+
+/**
+ * Panel that shows the opponent's board in versus mode. The simulation thread publishes frames of
+ * the mirrored remote game and painting reads the latest one without locking, as on the
+ * {@link Board}.
+ */
+public final class OpponentPanel extends JPanel {
+    private final TripleBuffer<FrameSnapshot> frames = new TripleBuffer<>(FrameSnapshot::new);
+    private final BoardRenderer renderer;
+
+    public OpponentPanel(TileSprites sprites) {
+        renderer = new BoardRenderer(sprites);
+        setPreferredSize(new Dimension(GameEngine.BOARD_WIDTH * 12, GameEngine.BOARD_HEIGHT * 12));
+    }
+
+    /**
+     * Publishes the state of {@code engine} for painting; runs on the simulation thread.
+     */
+    void publish(GameEngine engine, long tickNanos) {
+        frames.back().capture(engine, GameEngine.BOARD_HEIGHT, tickNanos, GameLoop.TICK_NANOS);
+        frames.publish();
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        renderer.paint(g, frames.front(), getWidth(), getHeight(), g.getClipBounds());
+    }
+}
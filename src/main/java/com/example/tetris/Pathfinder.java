@@ -0,0 +1,210 @@
+package com.example.tetris;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first search over the (x, y, rotation) states a piece can reach with single inputs,
+ * finding every resting placement together with the shortest input sequence that gets there,
+ * including tucks and spins under overhangs that rotate-and-slide search misses.
+ * <p>
+ * Before each search the board is turned into one collision mask per rotation and row, with a
+ * bit for every x at which the piece fits, so each BFS step is a bit test. All scratch arrays are
+ * allocated once; a search allocates nothing. Instances are confined to one thread.
+ */
+public final class Pathfinder {
+    private static final int WIDTH = GameEngine.BOARD_WIDTH;
+    private static final int HEIGHT = GameEngine.BOARD_HEIGHT;
+    /**
+     * Smallest x a piece can have: cells stick out at most two columns left of the origin.
+     */
+    private static final int MIN_X = -2;
+    private static final int POSITIONS = WIDTH + 4;
+    private static final int STATES = Shape.ROTATIONS * HEIGHT * POSITIONS;
+    /**
+     * Bits of an extended row: column {@code c} is bit {@code c + 4}, and the four columns on
+     * either side of the board are walls.
+     */
+    private static final int WALLS = 0xF | (-1 << (WIDTH + 4));
+    private static final GameInput[] MOVES = {
+        GameInput.MOVE_LEFT, GameInput.MOVE_RIGHT, GameInput.ROTATE_RIGHT, GameInput.ROTATE_LEFT,
+        GameInput.SOFT_DROP
+    };
+
+    private final int[] rows = new int[HEIGHT];
+    /**
+     * {@code free[rotation * HEIGHT + y]} has bit {@code x - MIN_X} set if the piece fits there.
+     */
+    private final int[] free = new int[Shape.ROTATIONS * HEIGHT];
+    private final long[] visited = new long[(STATES + 63) >>> 6];
+    private final long[] landed = new long[(STATES + 63) >>> 6];
+    private final int[] queue = new int[STATES];
+    private final int[] parent = new int[STATES];
+    private final byte[] move = new byte[STATES];
+    private final int[] sources = new int[STATES];
+    private final int[] targets = new int[STATES];
+    private Tetromino type = Tetromino.NO_SHAPE;
+    private int count;
+
+    public int search(GameEngine engine, Shape piece, int x0, int y0) {
+        for (int y = 0; y < HEIGHT; ++y) {
+            rows[y] = (int) engine.getRow(y);
+        }
+        return search(piece, x0, y0);
+    }
+
+    public int search(SearchBoard board, Shape piece, int x0, int y0) {
+        for (int y = 0; y < HEIGHT; ++y) {
+            rows[y] = board.getRow(y);
+        }
+        return search(piece, x0, y0);
+    }
+
+    /**
+     * Returns the number of placements reachable from {@code piece} at ({@code x0}, {@code y0}),
+     * which must be a free position, in order of their input count.
+     */
+    private int search(Shape piece, int x0, int y0) {
+        type = piece.getShape();
+        count = 0;
+        buildMasks();
+        Arrays.fill(visited, 0);
+        Arrays.fill(landed, 0);
+        boolean turns = type != Tetromino.SQUARE_SHAPE;
+
+        int start = state(piece.getRotation(), x0, y0);
+        visit(start);
+        parent[start] = -1;
+        queue[0] = start;
+        int tail = 1;
+        for (int head = 0; head < tail; ++head) {
+            int s = queue[head];
+            int rotation = rotationOf(s);
+            int x = xOf(s);
+            int y = yOf(s);
+
+            int landing = y;
+            while (fits(rotation, x, landing - 1)) {
+                --landing;
+            }
+            int target = state(rotation, x, landing);
+            if (!isSet(landed, target)) {
+                landed[target >>> 6] |= 1L << target;
+                sources[count] = s;
+                targets[count++] = target;
+            }
+
+            for (int m = 0; m < MOVES.length; ++m) {
+                int nextRotation = rotation;
+                int nextX = x;
+                int nextY = y;
+                switch (MOVES[m]) {
+                    case MOVE_LEFT -> --nextX;
+                    case MOVE_RIGHT -> ++nextX;
+                    case ROTATE_RIGHT -> nextRotation = (rotation + 1) & (Shape.ROTATIONS - 1);
+                    case ROTATE_LEFT -> nextRotation = (rotation + Shape.ROTATIONS - 1) & (Shape.ROTATIONS - 1);
+                    default -> --nextY;
+                }
+                if (nextRotation != rotation && !turns) {
+                    continue;
+                }
+                if (!fits(nextRotation, nextX, nextY)) {
+                    continue;
+                }
+                int next = state(nextRotation, nextX, nextY);
+                if (!isSet(visited, next)) {
+                    visit(next);
+                    parent[next] = s;
+                    move[next] = (byte) m;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Computes which x positions are free for every rotation and row of the current piece type:
+     * a position is blocked if any cell of the piece would overlap a filled cell, a wall, the
+     * floor or the space above the board.
+     */
+    private void buildMasks() {
+        int positions = (1 << POSITIONS) - 1;
+        for (int rotation = 0; rotation < Shape.ROTATIONS; ++rotation) {
+            Shape shape = Shape.of(type, rotation);
+            for (int y = 0; y < HEIGHT; ++y) {
+                int blocked = 0;
+                for (int i = 0; i < 4; ++i) {
+                    int row = y - shape.y(i);
+                    int bits = row < 0 || row >= HEIGHT ? -1 : (rows[row] << 4) | WALLS;
+                    blocked |= bits >>> (shape.x(i) - MIN_X);
+                }
+                free[rotation * HEIGHT + y] = ~blocked & positions;
+            }
+        }
+    }
+
+    private boolean fits(int rotation, int x, int y) {
+        return y >= 0 && y < HEIGHT && x >= MIN_X && x < MIN_X + POSITIONS
+            && (free[rotation * HEIGHT + y] & (1 << (x - MIN_X))) != 0;
+    }
+
+    private void visit(int state) {
+        visited[state >>> 6] |= 1L << state;
+    }
+
+    private static boolean isSet(long[] bits, int state) {
+        return (bits[state >>> 6] & (1L << state)) != 0;
+    }
+
+    private static int state(int rotation, int x, int y) {
+        return (rotation * HEIGHT + y) * POSITIONS + x - MIN_X;
+    }
+
+    private static int rotationOf(int state) {
+        return state / (HEIGHT * POSITIONS);
+    }
+
+    private static int xOf(int state) {
+        return state % POSITIONS + MIN_X;
+    }
+
+    private static int yOf(int state) {
+        return state / POSITIONS % HEIGHT;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the piece of the {@code index}-th placement in its final rotation.
+     */
+    public Shape getPiece(int index) {
+        return Shape.of(type, rotationOf(targets[index]));
+    }
+
+    public int getX(int index) {
+        return xOf(targets[index]);
+    }
+
+    public int getY(int index) {
+        return yOf(targets[index]);
+    }
+
+    /**
+     * Returns the shortest inputs that lock the piece into the {@code index}-th placement,
+     * ending with {@link GameInput#HARD_DROP}.
+     */
+    public GameInput[] getInputs(int index) {
+        int length = 1;
+        for (int s = sources[index]; parent[s] >= 0; s = parent[s]) {
+            ++length;
+        }
+        GameInput[] inputs = new GameInput[length];
+        inputs[--length] = GameInput.HARD_DROP;
+        for (int s = sources[index]; parent[s] >= 0; s = parent[s]) {
+            inputs[--length] = MOVES[move[s]];
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Per-game source of upcoming tetrominoes.
+ * Implementations are explicitly seeded and not thread-safe: every game owns its generator.
+ */
+public interface PieceGenerator {
+    /**
+     * Number of upcoming pieces that can always be inspected with {@link #peek(int)}.
+     */
+    int LOOKAHEAD = 8;
+
+    /**
+     * Upper bound on the size of a saved generator state.
+     */
+    int STATE_BYTES = 64;
+
+    /**
+     * Name accepted by {@link #forName(String, long)} to create a generator of the same kind.
+     */
+    String name();
+
+    /**
+     * Restarts the sequence as if the generator had just been created with {@code seed}.
+     */
+    void reset(long seed);
+
+    long getSeed();
+
+    Tetromino next();
+
+    /**
+     * Returns the piece that {@link #next()} will produce after {@code ahead} further calls,
+     * where {@code ahead} is below {@link #LOOKAHEAD}.
+     */
+    Tetromino peek(int ahead);
+
+    /**
+     * Writes everything needed to continue the sequence, at most {@link #STATE_BYTES} bytes.
+     */
+    void saveState(ByteBuffer out);
+
+    /**
+     * Restores a state written by {@link #saveState(ByteBuffer)} of a generator of the same kind.
+     */
+    void loadState(ByteBuffer in);
+
+    static PieceGenerator forName(String name, long seed) {
+        return switch (name) {
+            case "uniform" -> new UniformGenerator(seed);
+            case "bag" -> new SevenBagGenerator(seed);
+            default -> throw new IllegalArgumentException("Unknown generator: " + name);
+        };
+    }
+}
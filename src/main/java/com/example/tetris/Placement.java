@@ -0,0 +1,61 @@
+package com.example.tetris;
+
+import java.util.Arrays;
+
+/**
+ * Final resting position chosen for a piece, together with the inputs that get it there from
+ * where the piece currently is. The inputs always end with {@link GameInput#HARD_DROP}.
+ */
+public final class Placement {
+    private final Shape piece;
+    private final int x;
+    private final int y;
+    private final double score;
+    private final GameInput[] inputs;
+
+    Placement(Shape piece, int x, int y, double score, GameInput[] inputs) {
+        this.piece = piece;
+        this.x = x;
+        this.y = y;
+        this.score = score;
+        this.inputs = inputs;
+    }
+
+    public Shape getPiece() {
+        return piece;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public GameInput[] getInputs() {
+        return inputs.clone();
+    }
+
+    /**
+     * Applies the inputs to {@code engine} directly; returns false if one of them was rejected.
+     */
+    public boolean applyTo(GameEngine engine) {
+        for (GameInput input : inputs) {
+            if (!engine.apply(input)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s r%d at (%d, %d), score %.3f, %s", piece.getShape(), piece.getRotation(), x, y,
+            score, Arrays.toString(inputs));
+    }
+}
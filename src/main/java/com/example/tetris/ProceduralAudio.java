@@ -1,5 +1,7 @@
 package com.example.tetris;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.LineUnavailableException;
@@ -7,125 +9,186 @@ import javax.sound.sampled.SourceDataLine;
 
 /**
  * Simple procedural audio engine for background music and sound effects.
+ * A single mixer thread owns one long-lived output line and mixes the music with any number of
+ * overlapping effects from waveforms synthesized once at startup. It has no commands of its own:
+ * the music and effects follow the game's events, which the mixer thread reads from a
+ * {@link GameEventRing} itself, so the game never blocks on the audio device.
+ *
+ * <p>{@link #start()} synthesizes the waveforms and opens the line on the mixer thread, so the
+ * game can show its first frame while a slow audio stack is still opening. Effects of events
+ * published meanwhile are skipped rather than played late; without an audio device the game
+ * stays silent.
  */
 public final class ProceduralAudio {
     private static final float SAMPLE_RATE = 44100f;
     private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 8, 1, true, false);
+    private static final int CHUNK_SAMPLES = 512;
+    private static final int LINE_BUFFER_BYTES = CHUNK_SAMPLES * 4;
+    private static final long IDLE_PARK_MILLIS = 20;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(IDLE_PARK_MILLIS);
+
+    private static final int LOCK_EFFECT = 0;
+    private static final int LINE_CLEAR_EFFECT = 1;
+    private static final int TETRIS_EFFECT = 2;
+
+    private final Thread mixerThread;
+    private volatile boolean unavailable;
+    private volatile Metrics metrics;
+    private volatile GameEventRing.Consumer events;
+
+    public ProceduralAudio() {
+        mixerThread = new Thread(this::runMixer, "TetrisAudioMixer");
+        mixerThread.setDaemon(true);
+    }
 
-    private Thread musicThread;
-    private volatile boolean musicRunning;
-    private volatile boolean musicPaused;
-
-    public void startMusic() {
-        if (musicThread != null && musicThread.isAlive() && musicRunning) {
-            musicPaused = false;
-            return;
+    /**
+     * Starts preparing the audio in the background. A ring followed before the line is open is
+     * caught up on its music state once it is; see the class comment.
+     */
+    public synchronized void start() {
+        if (mixerThread.getState() == Thread.State.NEW) {
+            mixerThread.start();
         }
-
-        musicRunning = true;
-        musicPaused = false;
-        musicThread = new Thread(this::playMusicLoop, "TetrisMusicThread");
-        musicThread.setDaemon(true);
-        musicThread.start();
     }
 
-    public void pauseMusic() {
-        musicPaused = true;
+    /**
+     * Records mixing time, buffer underruns and when the audio became ready in {@code metrics};
+     * null disables it. Must be set before {@link #start()} to record the startup.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
     }
 
-    public void resumeMusic() {
-        musicPaused = false;
+    /**
+     * Plays the music and effects of the game publishing to {@code ring}. The events are read
+     * with every mixed chunk, and at least every {@value #IDLE_PARK_MILLIS} ms while silent.
+     */
+    synchronized void follow(GameEventRing ring) {
+        if (!unavailable) {
+            events = ring.consumer();
+        }
     }
 
-    public void stopMusic() {
-        musicRunning = false;
-        musicPaused = false;
-        if (musicThread != null) {
-            musicThread.interrupt();
-            if (Thread.currentThread() != musicThread) {
-                try {
-                    musicThread.join(200);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+    private void runMixer() {
+        AudioMixer mixer = createMixer();
+        GameEventRing.Handler onMusic = (type, tick, first, second, value, message) -> {
+            switch (type) {
+                case GameEventRing.STARTED -> mixer.startMusic();
+                case GameEventRing.PAUSED -> mixer.setMusicPaused(first == 1);
+                case GameEventRing.GAME_OVER -> mixer.stopMusic();
+                default -> {
+                    // no change to the music
                 }
             }
-        }
-    }
-
-    public void playLockSound() {
-        playEffect(new float[]{196f}, 80, 0.6f);
-    }
-
-    public void playLineClearSound(int lines) {
-        float base = lines == 4 ? 523.25f : 329.63f;
-        float[] freqs = lines == 4
-            ? new float[]{base, base * 1.25f, base * 1.5f}
-            : new float[]{base, base * 1.5f};
-        playEffect(freqs, 180, 0.5f);
-    }
-
-    private void playMusicLoop() {
-        float[] sequence = {
-            261.63f, 329.63f, 392.00f, 523.25f,
-            392.00f, 329.63f, 293.66f, 349.23f
+        };
+        GameEventRing.Handler onEvent = (type, tick, first, second, value, message) -> {
+            switch (type) {
+                case GameEventRing.LOCKED -> mixer.trigger(LOCK_EFFECT);
+                case GameEventRing.LINES -> mixer.trigger(first == 4 ? TETRIS_EFFECT : LINE_CLEAR_EFFECT);
+                default -> onMusic.onEvent(type, tick, first, second, value, message);
+            }
         };
 
         try (SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT)) {
-            line.open(FORMAT, 4096);
+            line.open(FORMAT, LINE_BUFFER_BYTES);
             line.start();
+            Metrics readyMetrics = this.metrics;
+            if (readyMetrics != null) {
+                readyMetrics.startup.mark(StartupTimes.Milestone.AUDIO_READY);
+            }
+            // catch up with the music, but drop the effects of anything that happened while opening
+            GameEventRing.Consumer backlog = this.events;
+            if (backlog != null) {
+                backlog.poll(onMusic);
+            }
 
-            int index = 0;
-            while (musicRunning) {
-                if (musicPaused) {
-                    try {
-                        Thread.sleep(50);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+            byte[] chunk = new byte[CHUNK_SAMPLES];
+            boolean playing = false;
+            while (true) {
+                GameEventRing.Consumer events = this.events;
+                if (events != null) {
+                    events.poll(onEvent);
+                }
+                if (mixer.isSilent()) {
+                    playing = false;
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
                     continue;
                 }
-
-                float freq = sequence[index % sequence.length];
-                writeTone(line, freq, 220, 0.25f);
-                writeSilence(line, 20);
-                index++;
+                Metrics metrics = this.metrics;
+                long start = metrics == null ? 0 : metrics.start();
+                mixer.mix(chunk, CHUNK_SAMPLES);
+                if (metrics != null) {
+                    metrics.audioMix.stop(start);
+                    if (playing && line.available() >= line.getBufferSize()) {
+                        metrics.countAudioUnderrun();
+                    }
+                }
+                line.write(chunk, 0, CHUNK_SAMPLES);
+                playing = true;
             }
         } catch (LineUnavailableException | IllegalArgumentException e) {
-            musicRunning = false;
+            System.err.println("Audio disabled: " + e.getMessage());
+            disable();
         }
     }
 
-    private void playEffect(float[] freqs, int durationMs, float volume) {
-        Thread thread = new Thread(() -> {
-            try (SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT)) {
-                line.open(FORMAT, 2048);
-                line.start();
-                for (float freq : freqs) {
-                    writeTone(line, freq, durationMs, volume);
-                }
-                line.drain();
-            } catch (LineUnavailableException | IllegalArgumentException e) {
-                // Audio not available; ignore effect.
-            }
-        }, "TetrisEffectSound");
-        thread.setDaemon(true);
-        thread.start();
+    /**
+     * Stops reading events for good, so they are not counted as lost.
+     */
+    private synchronized void disable() {
+        unavailable = true;
+        if (events != null) {
+            events.close();
+            events = null;
+        }
+        Metrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.startup.mark(StartupTimes.Milestone.AUDIO_UNAVAILABLE);
+        }
+    }
+
+    static AudioMixer createMixer() {
+        float clear = 329.63f;
+        float tetris = 523.25f;
+        byte[][] effects = {
+            synthesizeSequence(new float[]{196f}, 80, 0, 0.6f),
+            synthesizeSequence(new float[]{clear, clear * 1.5f}, 180, 0, 0.5f),
+            synthesizeSequence(new float[]{tetris, tetris * 1.25f, tetris * 1.5f}, 180, 0, 0.5f)
+        };
+        float[] melody = {
+            261.63f, 329.63f, 392.00f, 523.25f,
+            392.00f, 329.63f, 293.66f, 349.23f
+        };
+        return new AudioMixer(effects, synthesizeSequence(melody, 220, 20, 0.25f));
+    }
+
+    /**
+     * Renders consecutive tones, each followed by {@code gapMs} of silence, into one clip.
+     */
+    static byte[] synthesizeSequence(float[] freqs, int toneMs, int gapMs, float volume) {
+        int toneSamples = samples(toneMs);
+        int stride = toneSamples + samples(gapMs);
+        byte[] buffer = new byte[stride * freqs.length];
+        for (int i = 0; i < freqs.length; ++i) {
+            synthesizeTone(buffer, i * stride, toneSamples, freqs[i], volume);
+        }
+        return buffer;
+    }
+
+    static byte[] synthesizeTone(float freq, int durationMs, float volume) {
+        byte[] buffer = new byte[samples(durationMs)];
+        synthesizeTone(buffer, 0, buffer.length, freq, volume);
+        return buffer;
     }
 
-    private void writeTone(SourceDataLine line, float freq, int durationMs, float volume) {
-        int samples = (int) ((durationMs / 1000f) * SAMPLE_RATE);
-        byte[] buffer = new byte[samples];
+    private static void synthesizeTone(byte[] buffer, int offset, int samples, float freq, float volume) {
         for (int i = 0; i < samples; ++i) {
             double angle = 2.0 * Math.PI * i * freq / SAMPLE_RATE;
-            buffer[i] = (byte) (Math.sin(angle) * 127 * volume);
+            buffer[offset + i] = (byte) (Math.sin(angle) * 127 * volume);
         }
-        line.write(buffer, 0, buffer.length);
     }
 
-    private void writeSilence(SourceDataLine line, int durationMs) {
-        int samples = (int) ((durationMs / 1000f) * SAMPLE_RATE);
-        byte[] buffer = new byte[samples];
-        line.write(buffer, 0, buffer.length);
+    private static int samples(int durationMs) {
+        return (int) ((durationMs / 1000f) * SAMPLE_RATE);
     }
 }
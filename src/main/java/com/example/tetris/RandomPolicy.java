@@ -0,0 +1,24 @@
+package com.example.tetris;
+
+import java.util.SplittableRandom;
+
+/**
+ * Move policy that turns each piece a random number of times and slides it towards a random column.
+ */
+public final class RandomPolicy implements MovePolicy {
+    @Override
+    public void play(GameEngine engine, SplittableRandom random) {
+        int turns = random.nextInt(Shape.ROTATIONS);
+        for (int i = 0; i < turns; ++i) {
+            engine.rotateRight();
+        }
+
+        int target = random.nextInt(GameEngine.BOARD_WIDTH);
+        while (engine.getCurX() < target && engine.moveRight()) {
+            // keep sliding
+        }
+        while (engine.getCurX() > target && engine.moveLeft()) {
+            // keep sliding
+        }
+    }
+}
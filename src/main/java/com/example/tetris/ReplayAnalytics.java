@@ -0,0 +1,391 @@
+package com.example.tetris;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Mines replay archives for statistics by re-simulating every game with the {@link GameEngine}
+ * rules headlessly. The calling thread maps each archive a window at a time, finds where its games
+ * start and hands them out in batches to a pool, where each batch folds its games into one of a few
+ * reusable {@link Stats} that are merged at the end. At most a few batches per thread are in
+ * flight, so memory stays bounded however large the archives are; the mapped windows are only
+ * address space backed by the page cache.
+ */
+public final class ReplayAnalytics {
+    private static final long WINDOW_BYTES = 256L << 20;
+    private static final int BATCH_GAMES = 64;
+    private static final int BATCHES_PER_THREAD = 4;
+    /**
+     * Usual one-letter names of the pieces, by ordinal.
+     */
+    private static final String PIECE_LETTERS = " ZSITOLJ";
+
+    private final ForkJoinPool pool;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final Queue<Stats> idle = new ConcurrentLinkedQueue<>();
+    private volatile Throwable failure;
+    private long bytes;
+    private long truncated;
+
+    public ReplayAnalytics(ForkJoinPool pool) {
+        this.pool = pool;
+        maxInFlight = BATCHES_PER_THREAD * pool.getParallelism();
+        inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Mergeable statistics of any number of games. Everything is kept in fixed-size counters and
+     * histograms, so a {@code Stats} takes the same memory for one game or a billion.
+     */
+    public static final class Stats implements GameListener {
+        /**
+         * Stack height is averaged per second of game time up to this many seconds; later
+         * seconds share the last slot.
+         */
+        public static final int HEIGHT_SECONDS = 600;
+
+        private final long[] pieces = new long[Tetromino.values().length];
+        private final long[] clears = new long[5];
+        private final long[] heightSums = new long[HEIGHT_SECONDS];
+        private final long[] heightSamples = new long[HEIGHT_SECONDS];
+        private final Distribution inputGaps = new Distribution();
+        private final Distribution lines = new Distribution();
+        private final Distribution ticks = new Distribution();
+        private long games;
+        private long mismatched;
+        private long inputs;
+        private GameEngine engine;
+
+        /**
+         * Plays the game the reader is positioned on and folds it in.
+         */
+        void play(ReplayReader reader) throws IOException {
+            engine = new GameEngine(this, ReplayPlayer.generatorOf(reader));
+            engine.start(reader.seed());
+            long lastInput = -1;
+            while (reader.nextInput()) {
+                advance(reader.tick());
+                engine.apply(reader.input());
+                if (lastInput >= 0) {
+                    inputGaps.record(reader.tick() - lastInput);
+                }
+                lastInput = reader.tick();
+                ++inputs;
+            }
+            advance(reader.tick());
+            ++games;
+            lines.record(engine.getLinesRemoved());
+            ticks.record(engine.getTicks());
+            if (engine.getLinesRemoved() != reader.lines() || engine.getPiecesPlaced() != reader.pieces()
+                    || engine.stateHash() != reader.stateHash()) {
+                ++mismatched;
+            }
+            engine = null;
+        }
+
+        private void advance(long tick) {
+            while (engine.isStarted() && engine.getTicks() < tick) {
+                engine.tick();
+                if (engine.getTicks() % GameEngine.TICKS_PER_SECOND == 0) {
+                    int second = (int) Math.min(HEIGHT_SECONDS - 1, engine.getTicks() / GameEngine.TICKS_PER_SECOND);
+                    heightSums[second] += engine.getStackHeight();
+                    ++heightSamples[second];
+                }
+            }
+        }
+
+        @Override
+        public void pieceSpawned() {
+            Tetromino piece = engine.getCurrentPiece().getShape();
+            if (piece != Tetromino.NO_SHAPE) {
+                ++pieces[piece.ordinal()];
+            }
+        }
+
+        @Override
+        public void linesCleared(int cleared, int totalLines) {
+            ++clears[Math.min(cleared, clears.length - 1)];
+        }
+
+        Stats merge(Stats other) {
+            for (int i = 0; i < pieces.length; ++i) {
+                pieces[i] += other.pieces[i];
+            }
+            for (int i = 0; i < clears.length; ++i) {
+                clears[i] += other.clears[i];
+            }
+            for (int i = 0; i < HEIGHT_SECONDS; ++i) {
+                heightSums[i] += other.heightSums[i];
+                heightSamples[i] += other.heightSamples[i];
+            }
+            inputGaps.merge(other.inputGaps);
+            lines.merge(other.lines);
+            ticks.merge(other.ticks);
+            games += other.games;
+            mismatched += other.mismatched;
+            inputs += other.inputs;
+            return this;
+        }
+
+        public long games() {
+            return games;
+        }
+
+        /**
+         * Games whose re-simulation did not end with the recorded score and board.
+         */
+        public long mismatched() {
+            return mismatched;
+        }
+
+        public long inputs() {
+            return inputs;
+        }
+
+        /**
+         * Pieces of {@code piece} that entered the board.
+         */
+        public long pieces(Tetromino piece) {
+            return pieces[piece.ordinal()];
+        }
+
+        /**
+         * Clears of exactly {@code lines} lines, from 1 to 4.
+         */
+        public long clears(int lines) {
+            return clears[lines];
+        }
+
+        /**
+         * Mean stack height of the games still running at {@code second} seconds of game time,
+         * or -1 if none were.
+         */
+        public double stackHeight(int second) {
+            return heightSamples[second] == 0 ? -1 : (double) heightSums[second] / heightSamples[second];
+        }
+
+        /**
+         * Ticks between consecutive inputs of a game.
+         */
+        public Distribution inputGaps() {
+            return inputGaps;
+        }
+
+        public Distribution lines() {
+            return lines;
+        }
+
+        public Distribution ticks() {
+            return ticks;
+        }
+    }
+
+    /**
+     * Analyzes every game of the archive at {@code path}. Games of one archive are folded in
+     * parallel; a truncated last game, as a crash while recording leaves it, is skipped. Damage
+     * anywhere else fails the analysis with the offset of the damaged game, once the batches
+     * already handed out are done.
+     */
+    public void analyze(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            long size = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.BYTES));
+            if (size < Integer.BYTES || header.getInt(0) != ReplayWriter.MAGIC) {
+                throw new IOException("Not a replay archive: " + path);
+            }
+            long windowStart = Integer.BYTES;
+            while (windowStart < size) {
+                long windowEnd = Math.min(size, windowStart + WINDOW_BYTES);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    windowEnd - windowStart);
+                int scanned = submitGames(path, window, windowStart);
+                if (scanned < window.limit() && windowEnd == size) {
+                    // the game the scan stopped in runs past the end of the file: the last one, torn
+                    ++truncated;
+                    break;
+                }
+                if (scanned == 0) {
+                    throw new IOException(path + ": game at offset " + windowStart + " is larger than "
+                        + WINDOW_BYTES + " bytes");
+                }
+                windowStart += scanned;
+            }
+            bytes += size;
+        } catch (IOException | RuntimeException e) {
+            awaitBatches();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands out the whole games at the start of {@code window}, which begins {@code offset} bytes
+     * into the archive, in batches and returns how many bytes they take. A game cut off by the end
+     * of the window is left for the next one; any other damage is reported with its offset.
+     */
+    private int submitGames(Path path, MappedByteBuffer window, long offset) throws IOException {
+        ReplayReader scanner = new ReplayReader(window.duplicate());
+        int batchStart = 0;
+        int gameStart = 0;
+        int batchGames = 0;
+        try {
+            while (scanner.nextGame()) {
+                while (scanner.nextInput()) {
+                    // only the length of the game matters here
+                }
+                gameStart = scanner.position();
+                if (++batchGames == BATCH_GAMES) {
+                    submit(path, window, offset, batchStart, gameStart);
+                    batchStart = gameStart;
+                    batchGames = 0;
+                }
+            }
+        } catch (EOFException e) {
+            // the game at gameStart runs past the end of the window
+        } catch (IOException e) {
+            throw new IOException(path + ": game at offset " + (offset + gameStart) + ": " + e.getMessage(), e);
+        }
+        if (batchGames > 0) {
+            submit(path, window, offset, batchStart, gameStart);
+        }
+        return gameStart;
+    }
+
+    private void submit(Path path, MappedByteBuffer window, long offset, int from, int to) throws IOException {
+        if (failure != null) {
+            throw new IOException("Analysis failed", failure);
+        }
+        inFlight.acquireUninterruptibly();
+        pool.execute(() -> {
+            Stats stats = idle.poll();
+            ReplayReader reader = new ReplayReader(window.duplicate().position(from).limit(to));
+            int gameStart = from;
+            try {
+                if (stats == null) {
+                    stats = new Stats();
+                }
+                while (reader.nextGame()) {
+                    stats.play(reader);
+                    gameStart = reader.position();
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = new IOException(path + ": game at offset " + (offset + gameStart) + ": " + e.getMessage(), e);
+            } finally {
+                if (stats != null) {
+                    idle.add(stats);
+                }
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Waits for the games handed out so far and returns their merged statistics.
+     */
+    public Stats finish() throws IOException {
+        awaitBatches();
+        if (failure != null) {
+            throw new IOException("Analysis failed", failure);
+        }
+        Stats total = new Stats();
+        for (Stats stats : idle) {
+            total.merge(stats);
+        }
+        return total;
+    }
+
+    private void awaitBatches() {
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    /**
+     * Bytes of the archives analyzed so far.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Archives that ended in a torn game.
+     */
+    public long getTruncated() {
+        return truncated;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int first = 0;
+        if (args.length > 1 && args[0].equals("--threads")) {
+            threads = Integer.parseInt(args[1]);
+            first = 2;
+        }
+        if (first == args.length) {
+            System.err.println("Usage: ReplayAnalytics [--threads T] <archive>...");
+            System.exit(2);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ReplayAnalytics analytics = new ReplayAnalytics(pool);
+        long start = System.nanoTime();
+        Stats stats;
+        try {
+            for (int i = first; i < args.length; ++i) {
+                analytics.analyze(Path.of(args[i]));
+            }
+            stats = analytics.finish();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("%d games, %d threads, %.2f s, %.0f games/s, %.0f ticks/s, %.1f MB/s,"
+                + " %d mismatched, %d truncated archives%n",
+            stats.games(), threads, seconds, stats.games() / seconds, stats.ticks().mean() * stats.games() / seconds,
+            analytics.getBytes() / seconds / 1e6, stats.mismatched(), analytics.getTruncated());
+        System.out.println("lines cleared:  " + stats.lines());
+        System.out.println("game length:    " + stats.ticks() + " ticks");
+        System.out.println("input gaps:     " + stats.inputGaps() + " ticks");
+
+        long dealt = 0;
+        for (Tetromino piece : Tetromino.values()) {
+            dealt += stats.pieces(piece);
+        }
+        StringBuilder line = new StringBuilder("pieces:        ");
+        for (Tetromino piece : Tetromino.values()) {
+            if (piece != Tetromino.NO_SHAPE) {
+                line.append(String.format(" %c %.1f%%", PIECE_LETTERS.charAt(piece.ordinal()),
+                    100.0 * stats.pieces(piece) / Math.max(1, dealt)));
+            }
+        }
+        System.out.println(line);
+
+        long clears = 0;
+        for (int lines = 1; lines <= 4; ++lines) {
+            clears += stats.clears(lines);
+        }
+        System.out.printf("line clears:    %d single %.1f%%, double %.1f%%, triple %.1f%%, tetris %.1f%%%n", clears,
+            100.0 * stats.clears(1) / Math.max(1, clears), 100.0 * stats.clears(2) / Math.max(1, clears),
+            100.0 * stats.clears(3) / Math.max(1, clears), 100.0 * stats.clears(4) / Math.max(1, clears));
+
+        line = new StringBuilder("stack height:  ");
+        for (int second : new int[] {10, 30, 60, 120, 180, 300, Stats.HEIGHT_SECONDS - 1}) {
+            double height = stats.stackHeight(second);
+            if (height >= 0) {
+                line.append(String.format(" %s%d:%02d %.1f", second == Stats.HEIGHT_SECONDS - 1 ? ">=" : "",
+                    second / 60, second % 60, height));
+            }
+        }
+        System.out.println(line);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.tetris;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Re-simulates recorded games headlessly, as fast as the engine runs, and checks that each one
+ * ends with the recorded score and board.
+ */
+public final class ReplayPlayer {
+    private long ticksSimulated;
+
+    /**
+     * Plays the game the reader is positioned on and returns whether it matches its footer.
+     */
+    public boolean verify(ReplayReader reader) throws IOException {
+        GameEngine engine = new GameEngine(GameListener.NONE, generatorOf(reader));
+        engine.start(reader.seed());
+        while (reader.nextInput()) {
+            advance(engine, reader.tick());
+            engine.apply(reader.input());
+        }
+        advance(engine, reader.tick());
+        ticksSimulated += engine.getTicks();
+
+        return engine.getLinesRemoved() == reader.lines()
+            && engine.getPiecesPlaced() == reader.pieces()
+            && engine.stateHash() == reader.stateHash();
+    }
+
+    /**
+     * The piece generator of the game the reader is positioned on; an unknown name means the
+     * archive is corrupt.
+     */
+    static PieceGenerator generatorOf(ReplayReader reader) throws IOException {
+        try {
+            return PieceGenerator.forName(reader.generator(), reader.seed());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt replay archive: " + e.getMessage());
+        }
+    }
+
+    public long getTicksSimulated() {
+        return ticksSimulated;
+    }
+
+    private static void advance(GameEngine engine, long tick) {
+        while (engine.isStarted() && engine.getTicks() < tick) {
+            engine.tick();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayPlayer <archive>...");
+            System.exit(2);
+        }
+
+        ReplayPlayer player = new ReplayPlayer();
+        long games = 0;
+        long mismatches = 0;
+        long truncated = 0;
+        long corrupt = 0;
+        long start = System.nanoTime();
+        for (String arg : args) {
+            try (ReplayReader reader = new ReplayReader(Path.of(arg))) {
+                while (reader.nextGame()) {
+                    boolean matches = player.verify(reader);
+                    ++games;
+                    if (!matches) {
+                        ++mismatches;
+                        System.out.printf("%s: game %d (seed %d) does not match its recording%n",
+                            arg, games, reader.seed());
+                    }
+                }
+            } catch (EOFException e) {
+                ++truncated;
+            } catch (IOException e) {
+                ++corrupt;
+                System.out.printf("%s: %s%n", arg, e.getMessage());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games verified, %d mismatched, %d truncated archives, %d corrupt archives%n",
+            games, mismatches, truncated, corrupt);
+        System.out.printf("%.2f s, %.0f games/s, %.0f ticks/s%n",
+            seconds, games / seconds, player.getTicksSimulated() / seconds);
+        if (mismatches > 0 || corrupt > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.tetris;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Streams games out of a replay archive written by {@link ReplayWriter} through a fixed-size
+ * buffer, so archives of any size are read without loading them into memory. A reader can also
+ * walk a run of whole games already in memory, such as a mapped region of an archive.
+ */
+public final class ReplayReader implements Closeable {
+    /**
+     * Longest generator name accepted; the names in use are a few characters.
+     */
+    static final int MAX_NAME_BYTES = 255;
+    private static final int INPUT_COUNT = GameInput.values().length;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private boolean endOfStream;
+    /**
+     * Bytes read from the channel so far.
+     */
+    private long consumed;
+    private boolean inGame;
+    private long seed;
+    private String generator;
+    private long tick;
+    private GameInput input;
+    private int lines;
+    private int pieces;
+    private long stateHash;
+
+    public ReplayReader(Path path) throws IOException {
+        this(FileChannel.open(path));
+    }
+
+    public ReplayReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(1 << 16);
+        buffer.flip();
+        if (!ensure(Integer.BYTES) || buffer.getInt() != ReplayWriter.MAGIC) {
+            throw new IOException("Not a replay archive");
+        }
+    }
+
+    /**
+     * Reads the games between the position and the limit of {@code games}, which start right at a
+     * game rather than at the archive header.
+     */
+    ReplayReader(ByteBuffer games) {
+        channel = null;
+        buffer = games;
+        endOfStream = true;
+    }
+
+    /**
+     * Position in the buffer of a reader made from one; at the start of a game between games.
+     */
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Offset in the archive of the next unread byte of a reader made from a channel; the end of the
+     * last game read between games.
+     */
+    long offset() {
+        return consumed - buffer.remaining();
+    }
+
+    /**
+     * Advances to the next game, skipping any unread inputs of the current one.
+     * Returns false at the end of the archive.
+     */
+    public boolean nextGame() throws IOException {
+        while (inGame) {
+            nextInput();
+        }
+        if (!ensure(1)) {
+            return false;
+        }
+        if (buffer.get() != ReplayWriter.GAME) {
+            throw new IOException("Corrupt replay archive: game marker expected");
+        }
+        seed = VarInts.unZigZag(readVarLong());
+        long nameLength = readVarLong();
+        if (nameLength < 0 || nameLength > MAX_NAME_BYTES) {
+            throw new IOException("Corrupt replay archive: generator name of " + nameLength + " bytes");
+        }
+        byte[] name = new byte[(int) nameLength];
+        if (!ensure(name.length)) {
+            throw new EOFException("Truncated game header");
+        }
+        buffer.get(name);
+        generator = new String(name, StandardCharsets.US_ASCII);
+        tick = 0;
+        inGame = true;
+        return true;
+    }
+
+    /**
+     * Reads the next input of the current game. Returns false once the game has ended,
+     * after which the final tick and the footer fields are available.
+     */
+    public boolean nextInput() throws IOException {
+        if (!inGame) {
+            return false;
+        }
+        long token = readVarLong();
+        tick += token >>> ReplayWriter.INPUT_BITS;
+        int code = (int) (token & ((1 << ReplayWriter.INPUT_BITS) - 1));
+        if (code > INPUT_COUNT) {
+            throw new IOException("Corrupt replay archive: input code " + code);
+        }
+        if (code != 0) {
+            input = GameInput.of(code - 1);
+            return true;
+        }
+        lines = (int) readVarLong();
+        pieces = (int) readVarLong();
+        if (!ensure(Long.BYTES)) {
+            throw new EOFException("Truncated game footer");
+        }
+        stateHash = buffer.getLong();
+        input = null;
+        inGame = false;
+        return false;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public String generator() {
+        return generator;
+    }
+
+    /**
+     * Engine tick at which the current input was applied, or the final tick once the game ended.
+     */
+    public long tick() {
+        return tick;
+    }
+
+    public GameInput input() {
+        return input;
+    }
+
+    public int lines() {
+        return lines;
+    }
+
+    public int pieces() {
+        return pieces;
+    }
+
+    public long stateHash() {
+        return stateHash;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private long readVarLong() throws IOException {
+        ensure(VarInts.MAX_VARLONG_BYTES);
+        try {
+            return VarInts.getVarLong(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Truncated replay");
+        } catch (IllegalStateException e) {
+            throw new IOException("Corrupt replay archive: " + e.getMessage());
+        }
+    }
+
+    private boolean ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (endOfStream || bytes > buffer.capacity()) {
+            return false;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && !endOfStream) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                endOfStream = true;
+            } else {
+                consumed += read;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+}
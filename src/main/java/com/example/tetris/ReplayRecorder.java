@@ -0,0 +1,85 @@
+package com.example.tetris;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records the games of a {@link GameEventRing} into a {@link ReplayWriter} on a thread of its own,
+ * so the simulation never touches the file. Games start and end with the ring's start and end
+ * events and take the inputs of its move events. Recording stops if writing fails or the recorder
+ * falls so far behind that events were lost, since the replay could no longer be verified.
+ */
+final class ReplayRecorder implements Runnable, Closeable, GameEventRing.Handler {
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final ReplayWriter writer;
+    private final GameEventRing.Consumer events;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean recording = true;
+
+    ReplayRecorder(ReplayWriter writer, GameEventRing ring) {
+        this.writer = writer;
+        events = ring.consumer();
+        thread = new Thread(this, "TetrisReplayRecorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    boolean isRecording() {
+        return recording;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            LockSupport.parkNanos(POLL_NANOS);
+            drain();
+        }
+    }
+
+    private synchronized void drain() {
+        if (!recording) {
+            events.skip();
+            return;
+        }
+        events.poll(this);
+    }
+
+    @Override
+    public void onEvent(int type, long tick, int first, int second, long value, Object message) {
+        if (!recording) {
+            return;
+        }
+        try {
+            if (events.getDropped() > 0) {
+                throw new IOException("fell behind the game and lost events");
+            }
+            switch (type) {
+                case GameEventRing.STARTED -> writer.beginGame(value, (String) message);
+                case GameEventRing.MOVED -> writer.recordInput(tick, GameInput.of(first));
+                case GameEventRing.GAME_OVER, GameEventRing.ENDED -> writer.endGame(tick, first, second, value);
+                default -> {
+                    // the replay only needs the seed and the inputs
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Replay recording stopped: " + e.getMessage());
+            recording = false;
+        }
+    }
+
+    /**
+     * Records what is still queued, for example the end of a game the player quit, and closes the
+     * archive. The producer must have stopped publishing.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(thread);
+        drain();
+        writer.close();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.tetris;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends recorded games to a replay archive. A game cut off by a crash is cut from the end of
+ * the archive when it is opened again, so the games appended after it stay readable.
+ *
+ * <p>An archive is the magic number followed by any number of games. A game is the byte
+ * {@code 'G'}, the zigzag varint seed and the length-prefixed generator name, then one varint
+ * per input holding {@code tickDelta << 3 | (input + 1)}, where the delta counts engine ticks
+ * since the previous input. A token with input bits {@code 0} ends the game; its delta leads to
+ * the final tick and it is followed by the varint lines and pieces and the 8-byte
+ * {@link GameEngine#stateHash()} used for verification.
+ */
+public final class ReplayWriter implements Closeable {
+    static final int MAGIC = 0x54525033;
+    static final byte GAME = 'G';
+    static final int INPUT_BITS = 3;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private boolean inGame;
+    private long lastTick;
+
+    public ReplayWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                buffer.putInt(MAGIC);
+            } else {
+                long end = completeLength(path);
+                channel.truncate(end);
+                channel.position(end);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the archive through to the end of its last whole game and returns that length.
+     */
+    private long completeLength(Path path) throws IOException {
+        channel.position(0);
+        ReplayReader reader;
+        try {
+            reader = new ReplayReader(channel);
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + ": " + path, e);
+        }
+        long end = reader.offset();
+        try {
+            while (reader.nextGame()) {
+                while (reader.nextInput()) {
+                    // only the length of the game matters here
+                }
+                end = reader.offset();
+            }
+        } catch (EOFException e) {
+            // the last game is torn
+        } catch (IOException e) {
+            throw new IOException(path + ": game at offset " + end + ": " + e.getMessage(), e);
+        }
+        return end;
+    }
+
+    public synchronized boolean isInGame() {
+        return inGame;
+    }
+
+    public synchronized void beginGame(long seed, String generator) throws IOException {
+        byte[] name = generator.getBytes(StandardCharsets.US_ASCII);
+        reserve(1 + 2 * VarInts.MAX_VARLONG_BYTES + name.length);
+        buffer.put(GAME);
+        VarInts.putVarLong(buffer, VarInts.zigZag(seed));
+        VarInts.putVarLong(buffer, name.length);
+        buffer.put(name);
+        inGame = true;
+        lastTick = 0;
+    }
+
+    public synchronized void recordInput(long tick, GameInput input) throws IOException {
+        if (!inGame) {
+            return;
+        }
+        reserve(VarInts.MAX_VARLONG_BYTES);
+        VarInts.putVarLong(buffer, (tick - lastTick) << INPUT_BITS | (input.ordinal() + 1));
+        lastTick = tick;
+    }
+
+    /**
+     * Ends the game with the final tick, totals and {@link GameEngine#stateHash()} of its engine.
+     */
+    public synchronized void endGame(long tick, int lines, int pieces, long stateHash) throws IOException {
+        if (!inGame) {
+            return;
+        }
+        reserve(3 * VarInts.MAX_VARLONG_BYTES + Long.BYTES);
+        VarInts.putVarLong(buffer, (tick - lastTick) << INPUT_BITS);
+        VarInts.putVarLong(buffer, lines);
+        VarInts.putVarLong(buffer, pieces);
+        buffer.putLong(stateHash);
+        inGame = false;
+        flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
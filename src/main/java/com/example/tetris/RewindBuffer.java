@@ -0,0 +1,147 @@
+package com.example.tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * In-memory rewind history of one game: a checkpoint of the engine state every few ticks in a
+ * preallocated ring, plus the inputs applied in between. Seeking restores the nearest earlier
+ * checkpoint and replays at most one checkpoint interval of ticks, so any point in the kept
+ * history is reached in microseconds. Recording allocates nothing; the oldest history is
+ * overwritten once the ring is full. Instances are confined to the simulation thread.
+ */
+public final class RewindBuffer {
+    public static final int DEFAULT_CHECKPOINT_TICKS = GameEngine.TICKS_PER_SECOND / 2;
+    private static final int INPUT_BITS = 3;
+
+    private final int checkpointTicks;
+    private final int stateBytes;
+    private final ByteBuffer states;
+    private final long[] stateTicks;
+    private final long[] inputs;
+    /**
+     * Index of the oldest and count of kept checkpoints.
+     */
+    private int firstState;
+    private int stateCount;
+    /**
+     * Running counts of inputs ever recorded and of the oldest one still kept.
+     */
+    private long inputEnd;
+    private long inputStart;
+
+    /**
+     * History of a game on a standard board.
+     *
+     * @param checkpointTicks ticks between checkpoints
+     * @param seconds how much game time to keep
+     */
+    public RewindBuffer(int checkpointTicks, int seconds) {
+        this(checkpointTicks, seconds, GameEngine.STATE_BYTES);
+    }
+
+    /**
+     * @param stateBytes bound on the engine's state size, see {@link GameEngine#getStateBytes()}
+     */
+    public RewindBuffer(int checkpointTicks, int seconds, int stateBytes) {
+        this.checkpointTicks = checkpointTicks;
+        this.stateBytes = stateBytes;
+        int slots = Math.max(2, seconds * GameEngine.TICKS_PER_SECOND / checkpointTicks + 1);
+        states = ByteBuffer.allocate(slots * stateBytes);
+        stateTicks = new long[slots];
+        inputs = new long[Integer.highestOneBit(Math.max(1024, seconds * GameEngine.TICKS_PER_SECOND * 2)) * 2];
+    }
+
+    /**
+     * Forgets all history, as when a new game starts.
+     */
+    public void clear() {
+        stateCount = 0;
+        inputStart = inputEnd;
+    }
+
+    /**
+     * Checkpoints {@code engine} if its tick count is due, or whatever its tick count if there is
+     * no checkpoint yet; call after every tick and right after a game starts or is restored.
+     */
+    public void record(GameEngine engine) {
+        long tick = engine.getTicks();
+        if (stateCount > 0 && (tick % checkpointTicks != 0 || tick <= latestTick())) {
+            return;
+        }
+        int slot;
+        if (stateCount == stateTicks.length) {
+            slot = firstState;
+            firstState = (firstState + 1) % stateTicks.length;
+        } else {
+            slot = (firstState + stateCount++) % stateTicks.length;
+        }
+        stateTicks[slot] = tick;
+        engine.saveState(states.clear().position(slot * stateBytes));
+    }
+
+    /**
+     * Records an input applied to the engine before tick {@code tick} was run.
+     */
+    public void recordInput(long tick, GameInput input) {
+        if (inputEnd - inputStart == inputs.length) {
+            long dropped = inputTick(inputStart++);
+            while (stateCount > 0 && stateTicks[firstState] <= dropped) {
+                firstState = (firstState + 1) % stateTicks.length;
+                --stateCount;
+            }
+        }
+        inputs[index(inputEnd++)] = tick << INPUT_BITS | input.ordinal();
+    }
+
+    private int index(long input) {
+        return (int) input & (inputs.length - 1);
+    }
+
+    private long inputTick(long input) {
+        return inputs[index(input)] >>> INPUT_BITS;
+    }
+
+    /**
+     * Earliest tick that {@link #seek} can return to, or -1 if there is no history.
+     */
+    public long earliestTick() {
+        return stateCount == 0 ? -1 : stateTicks[firstState];
+    }
+
+    private long latestTick() {
+        return stateTicks[(firstState + stateCount - 1) % stateTicks.length];
+    }
+
+    /**
+     * Puts {@code engine} back to how it was after {@code tick} ticks, clamped to the kept history,
+     * and forgets everything after that point. The engine's listener sees the replayed inputs and
+     * ticks as usual. Returns the tick reached, or -1 if there is no history.
+     */
+    public long seek(GameEngine engine, long tick) {
+        if (stateCount == 0) {
+            return -1;
+        }
+        long target = Math.max(earliestTick(), Math.min(tick, engine.getTicks()));
+        while (stateCount > 1 && latestTick() > target) {
+            --stateCount;
+        }
+        int slot = (firstState + stateCount - 1) % stateTicks.length;
+        engine.loadState(states.clear().position(slot * stateBytes));
+
+        long next = inputEnd;
+        while (next > inputStart && inputTick(next - 1) >= engine.getTicks()) {
+            --next;
+        }
+        while (engine.isStarted() && engine.getTicks() < target) {
+            while (next < inputEnd && inputTick(next) == engine.getTicks()) {
+                engine.apply(GameInput.of((int) (inputs[index(next++)] & ((1 << INPUT_BITS) - 1))));
+            }
+            engine.tick();
+        }
+        while (next < inputEnd && inputTick(next) < engine.getTicks()) {
+            ++next;
+        }
+        inputEnd = next;
+        return engine.getTicks();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.tetris;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adds the finished games of a {@link GameEventRing} to a {@link ScoreStore} on a thread of its
+ * own, so the simulation never touches the file or waits for a compaction. A game counts when it
+ * is over; games the player leaves by restarting or quitting, and games that were rewound or
+ * loaded from a snapshot, do not. The store is opened on that thread too, since recovering a
+ * large log must not hold up the first frame.
+ */
+final class ScoreRecorder implements Runnable, Closeable, GameEventRing.Handler {
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Path path;
+    private ScoreStore store;
+    private final String modeSuffix;
+    private final String player;
+    private final GameEventRing.Consumer events;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long seed;
+    private String generator;
+
+    /**
+     * @param modeSuffix appended to the generator name to make the mode, e.g. the board size
+     */
+    ScoreRecorder(Path path, String modeSuffix, String player, GameEventRing ring) {
+        this.path = path;
+        this.modeSuffix = modeSuffix;
+        this.player = player;
+        events = ring.consumer();
+        thread = new Thread(this, "TetrisScoreRecorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        if (!open()) {
+            return;
+        }
+        while (running) {
+            LockSupport.parkNanos(POLL_NANOS);
+            drain();
+        }
+    }
+
+    private synchronized boolean open() {
+        if (!running) {
+            return false;
+        }
+        try {
+            store = new ScoreStore(path);
+            return true;
+        } catch (IOException e) {
+            System.err.println("High scores disabled: " + e.getMessage());
+            events.close();
+            return false;
+        }
+    }
+
+    private synchronized void drain() {
+        if (store != null) {
+            events.poll(this);
+        }
+    }
+
+    @Override
+    public void onEvent(int type, long tick, int first, int second, long value, Object message) {
+        switch (type) {
+            case GameEventRing.STARTED -> {
+                // a game that comes back after game over through a rewind starts past tick 0
+                seed = value;
+                generator = tick == 0 ? (String) message : null;
+            }
+            case GameEventRing.GAME_OVER -> {
+                if (generator == null) {
+                    return;
+                }
+                try {
+                    store.add(generator + modeSuffix, seed, player, first, second, tick);
+                    store.flush();
+                } catch (IOException e) {
+                    System.err.println("Failed to save the score: " + e.getMessage());
+                }
+                generator = null;
+            }
+            case GameEventRing.REWOUND -> generator = null;
+            default -> {
+                // only the seed and the result matter
+            }
+        }
+    }
+
+    /**
+     * Adds a game that just ended and closes the store. The producer must have stopped publishing.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        running = false;
+        LockSupport.unpark(thread);
+        drain();
+        if (store != null) {
+            store.close();
+        }
+    }
+}
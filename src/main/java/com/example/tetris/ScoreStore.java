@@ -0,0 +1,750 @@
+package com.example.tetris;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent high scores: a memory-mapped, append-only log of results with an in-memory index of
+ * the best {@code top} results per mode and seed, so that comparing players on the same piece
+ * sequence is a lookup rather than a scan of the history.
+ *
+ * <p>The log is a 64-byte header followed by fixed 80-byte records, each led by a CRC32C of the
+ * rest. Only results that make their leaderboard are appended, and an append is a copy into the
+ * mapping, so a result survives a crash of the process once {@link #add} returns;
+ * {@link #flush()} also covers a crash of the machine. Opening the log replays the records up to
+ * the first one whose checksum fails and wipes whatever follows it, so a torn last write is
+ * dropped rather than read back later. Once the log holds twice as many records as the index
+ * (and at least {@value #MIN_COMPACT_RECORDS}), it is rewritten with just the indexed results and
+ * atomically renamed over the old one. The header keeps {@code top}, since a store opened with a
+ * smaller one would drop places from every leaderboard at its next compaction.
+ *
+ * <p>A store opened with {@link #readOnly} only reads the log as it is: it neither wipes torn
+ * records nor compacts, so it can show the leaderboards of a log that a game is writing.
+ *
+ * <p>The methods are synchronized, so simulator threads, the server and the game may share one
+ * store. A writable store locks its log, so a second process that opens it for writing fails
+ * rather than overwriting the first one's records; read-only stores take no lock.
+ */
+public final class ScoreStore implements Closeable {
+    public static final int DEFAULT_TOP = 10;
+    /**
+     * Longest mode name in ASCII characters; longer player names are cut to {@link #PLAYER_CHARS}.
+     */
+    public static final int MODE_CHARS = 16;
+    public static final int PLAYER_CHARS = 24;
+
+    static final int MAGIC = 0x54534331;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 80;
+    private static final int HEADER_TOP = 12;
+    static final int MIN_COMPACT_RECORDS = 1 << 16;
+    private static final int INITIAL_RECORDS = 1 << 12;
+    private static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+    private static final int CRC = 0;
+    private static final int LINES = 4;
+    private static final int SEED = 8;
+    private static final int TICKS = 16;
+    private static final int TIME = 24;
+    private static final int PIECES = 32;
+    private static final int MODE = 40;
+    private static final int PLAYER = MODE + MODE_CHARS;
+
+    private final Path path;
+    private final boolean writable;
+    private int top;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int records;
+    private int discarded;
+    private int compactions;
+    private final byte[] scratch = new byte[RECORD_BYTES];
+    private final ByteBuffer record = ByteBuffer.wrap(scratch);
+    private final CRC32C crc = new CRC32C();
+
+    private final Map<String, Integer> modeIds = new HashMap<>();
+    private final List<String> modes = new ArrayList<>();
+    private final Map<String, Integer> playerIds = new HashMap<>();
+    private final List<String> players = new ArrayList<>();
+    private String lastMode;
+    private int lastModeId;
+    private String lastPlayer;
+    private int lastPlayerId;
+    private int[] keyModes = new int[1 << 10];
+    private long[] keySeeds = new long[keyModes.length];
+    private Leaderboard[] leaderboards = new Leaderboard[keyModes.length];
+    private int leaderboardCount;
+    private int entries;
+
+    /**
+     * One result on a leaderboard. Better results clear more lines, then take fewer ticks, then
+     * came first.
+     */
+    public static final class Score {
+        private final String mode;
+        private final long seed;
+        private final String player;
+        private final int lines;
+        private final int pieces;
+        private final long ticks;
+        private final long timeMillis;
+
+        Score(String mode, long seed, String player, int lines, int pieces, long ticks, long timeMillis) {
+            this.mode = mode;
+            this.seed = seed;
+            this.player = player;
+            this.lines = lines;
+            this.pieces = pieces;
+            this.ticks = ticks;
+            this.timeMillis = timeMillis;
+        }
+
+        public String mode() {
+            return mode;
+        }
+
+        public long seed() {
+            return seed;
+        }
+
+        public String player() {
+            return player;
+        }
+
+        public int lines() {
+            return lines;
+        }
+
+        public int pieces() {
+            return pieces;
+        }
+
+        public long ticks() {
+            return ticks;
+        }
+
+        /**
+         * When the result was added, in milliseconds since the epoch.
+         */
+        public long timeMillis() {
+            return timeMillis;
+        }
+    }
+
+    /**
+     * The best results of one mode and seed, best first, held as primitives so that an insert
+     * neither allocates nor stores references into the long-lived index.
+     */
+    private static final class Leaderboard {
+        /**
+         * Per result: lines and pieces, ticks, time and player id.
+         */
+        private static final int FIELDS = 4;
+
+        private long[] results = new long[FIELDS];
+        private int size;
+
+        int lines(int rank) {
+            return (int) (results[rank * FIELDS] >> 32);
+        }
+
+        int pieces(int rank) {
+            return (int) results[rank * FIELDS];
+        }
+
+        long ticks(int rank) {
+            return results[rank * FIELDS + 1];
+        }
+
+        long timeMillis(int rank) {
+            return results[rank * FIELDS + 2];
+        }
+
+        int player(int rank) {
+            return (int) results[rank * FIELDS + 3];
+        }
+
+        /**
+         * Where a new result would go; results that tie an earlier one go after it.
+         */
+        int rankOf(int lines, long ticks) {
+            int rank = size;
+            while (rank > 0 && (lines != lines(rank - 1) ? lines > lines(rank - 1) : ticks < ticks(rank - 1))) {
+                --rank;
+            }
+            return rank;
+        }
+
+        /**
+         * Inserts at {@code rank} and returns whether the board grew rather than dropped its last.
+         */
+        boolean insert(int rank, int lines, int pieces, long ticks, long timeMillis, int player, int top) {
+            boolean grows = size < top;
+            if (grows && size * FIELDS == results.length) {
+                results = Arrays.copyOf(results, Math.min(top, 2 * size) * FIELDS);
+            }
+            int moved = (grows ? size : size - 1) - rank;
+            System.arraycopy(results, rank * FIELDS, results, (rank + 1) * FIELDS, moved * FIELDS);
+            int at = rank * FIELDS;
+            results[at] = (long) lines << 32 | pieces & 0xFFFFFFFFL;
+            results[at + 1] = ticks;
+            results[at + 2] = timeMillis;
+            results[at + 3] = player;
+            if (grows) {
+                ++size;
+            }
+            return grows;
+        }
+    }
+
+    /**
+     * Opens or creates the store at {@code path}, recovering the log after a crash.
+     *
+     * @param top results kept per mode and seed; must match the store's if it exists
+     */
+    public ScoreStore(Path path, int top) throws IOException {
+        this(path, top, true);
+    }
+
+    public ScoreStore(Path path) throws IOException {
+        this(path, DEFAULT_TOP);
+    }
+
+    private ScoreStore(Path path, int top, boolean writable) throws IOException {
+        if (top < 1) {
+            throw new IllegalArgumentException("Leaderboards need at least one place: " + top);
+        }
+        this.path = path;
+        this.top = top;
+        this.writable = writable;
+        if (writable) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        } else {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        try {
+            if (writable) {
+                lock(channel);
+                // left by a compaction that crashed; only the holder of the lock writes one
+                Files.deleteIfExists(compactionPath());
+            }
+            open();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the existing store at {@code path} without writing to it, with as many places per
+     * leaderboard as it keeps. Torn records are skipped rather than wiped, and {@link #add} fails.
+     */
+    public static ScoreStore readOnly(Path path) throws IOException {
+        return new ScoreStore(path, DEFAULT_TOP, false);
+    }
+
+    private void lock(FileChannel locked) throws IOException {
+        try {
+            if (locked.tryLock() != null) {
+                return;
+            }
+        } catch (OverlappingFileLockException e) {
+            // held by another store of this process
+        }
+        throw new IOException("Score store is already open for writing elsewhere: " + path);
+    }
+
+    private void open() throws IOException {
+        long size = channel.size();
+        if (size == 0 && writable) {
+            capacity = INITIAL_RECORDS;
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes(capacity));
+            writeHeader(map);
+            map.force();
+            return;
+        }
+        if (size < HEADER_BYTES) {
+            throw new IOException("Not a score store: " + path);
+        }
+        capacity = (int) Math.min(MAX_RECORDS, (size - HEADER_BYTES) / RECORD_BYTES);
+        map = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0,
+            bytes(capacity));
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(8) != RECORD_BYTES) {
+            throw new IOException("Not a score store: " + path);
+        }
+        int stored = map.getInt(HEADER_TOP);
+        if (stored == 0 && writable) {
+            // written before the header kept the depth
+            map.putInt(HEADER_TOP, top);
+            map.force();
+        } else if (stored != 0 && !writable) {
+            top = stored;
+        } else if (stored != 0 && stored != top) {
+            throw new IOException("Score store " + path + " keeps " + stored + " results per leaderboard, not "
+                + top);
+        }
+        recover();
+        if (writable) {
+            compactIfDue();
+        }
+    }
+
+    /**
+     * Indexes every record up to the first torn or corrupt one. Records after it are zeroed up to
+     * the first never-written slot, since new appends would otherwise sit in front of stale
+     * records that the next recovery would read back; a read-only store only counts them.
+     */
+    private void recover() {
+        while (records < capacity && readRecord(records)) {
+            indexRecord();
+            ++records;
+        }
+        for (int slot = records; slot < capacity && !isZero(slot); ++slot) {
+            if (writable) {
+                Arrays.fill(scratch, (byte) 0);
+                map.put(offset(slot), scratch);
+            }
+            ++discarded;
+        }
+        if (discarded > 0 && writable) {
+            map.force();
+        }
+    }
+
+    /**
+     * Adds a result and returns whether it made its leaderboard; results that do not are not
+     * written.
+     *
+     * @param mode the rules the game was played by, at most {@link #MODE_CHARS} ASCII characters
+     */
+    public synchronized boolean add(String mode, long seed, String player, int lines, int pieces, long ticks)
+            throws IOException {
+        if (!writable) {
+            throw new IOException("Score store is open read-only: " + path);
+        }
+        int modeId = modeId(mode);
+        Leaderboard leaderboard = leaderboard(modeId, seed);
+        int rank = leaderboard == null ? 0 : leaderboard.rankOf(lines, ticks);
+        if (rank >= top) {
+            return false;
+        }
+        int playerId = playerId(player);
+        long timeMillis = System.currentTimeMillis();
+        if (records == capacity) {
+            grow();
+        }
+        encode(modeId, seed, playerId, lines, pieces, ticks, timeMillis);
+        map.put(offset(records), scratch);
+        ++records;
+        if (leaderboard == null) {
+            leaderboard = addLeaderboard(modeId, seed);
+        }
+        if (leaderboard.insert(rank, lines, pieces, ticks, timeMillis, playerId, top)) {
+            ++entries;
+        }
+        compactIfDue();
+        return true;
+    }
+
+    /**
+     * The leaderboard of {@code mode} and {@code seed}, best first; empty if nobody played it.
+     */
+    public synchronized List<Score> top(String mode, long seed) {
+        Integer modeId = modeIds.get(mode);
+        Leaderboard leaderboard = modeId == null ? null : leaderboard(modeId, seed);
+        if (leaderboard == null) {
+            return List.of();
+        }
+        Score[] scores = new Score[leaderboard.size];
+        for (int rank = 0; rank < scores.length; ++rank) {
+            scores[rank] = score(modeId, seed, leaderboard, rank);
+        }
+        return List.of(scores);
+    }
+
+    /**
+     * The best result of {@code mode} and {@code seed}, or null.
+     */
+    public synchronized Score best(String mode, long seed) {
+        Integer modeId = modeIds.get(mode);
+        Leaderboard leaderboard = modeId == null ? null : leaderboard(modeId, seed);
+        return leaderboard == null ? null : score(modeId, seed, leaderboard, 0);
+    }
+
+    private Score score(int modeId, long seed, Leaderboard leaderboard, int rank) {
+        return new Score(modes.get(modeId), seed, players.get(leaderboard.player(rank)), leaderboard.lines(rank),
+            leaderboard.pieces(rank), leaderboard.ticks(rank), leaderboard.timeMillis(rank));
+    }
+
+    /**
+     * Results held by the leaderboards.
+     */
+    public synchronized int size() {
+        return entries;
+    }
+
+    public synchronized int getLeaderboards() {
+        return leaderboardCount;
+    }
+
+    /**
+     * Records in the log, including results since pushed off their leaderboard.
+     */
+    public synchronized int getRecords() {
+        return records;
+    }
+
+    public synchronized long getFileBytes() {
+        return bytes(capacity);
+    }
+
+    /**
+     * Torn or corrupt records dropped when the store was opened, or skipped if it is read-only.
+     */
+    public synchronized int getDiscarded() {
+        return discarded;
+    }
+
+    public synchronized int getCompactions() {
+        return compactions;
+    }
+
+    /**
+     * Writes the log through to the disk.
+     */
+    public synchronized void flush() {
+        if (writable) {
+            map.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        flush();
+        channel.close();
+    }
+
+    private Leaderboard leaderboard(int modeId, long seed) {
+        int mask = leaderboards.length - 1;
+        for (int slot = slot(modeId, seed, mask); leaderboards[slot] != null; slot = (slot + 1) & mask) {
+            if (keySeeds[slot] == seed && keyModes[slot] == modeId) {
+                return leaderboards[slot];
+            }
+        }
+        return null;
+    }
+
+    private Leaderboard addLeaderboard(int modeId, long seed) {
+        if (2 * (leaderboardCount + 1) > leaderboards.length) {
+            rehash();
+        }
+        int mask = leaderboards.length - 1;
+        int slot = slot(modeId, seed, mask);
+        while (leaderboards[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keyModes[slot] = modeId;
+        keySeeds[slot] = seed;
+        leaderboards[slot] = new Leaderboard();
+        ++leaderboardCount;
+        return leaderboards[slot];
+    }
+
+    private void rehash() {
+        int[] oldModes = keyModes;
+        long[] oldSeeds = keySeeds;
+        Leaderboard[] oldLeaderboards = leaderboards;
+        keyModes = new int[2 * oldModes.length];
+        keySeeds = new long[keyModes.length];
+        leaderboards = new Leaderboard[keyModes.length];
+        int mask = leaderboards.length - 1;
+        for (int i = 0; i < oldLeaderboards.length; ++i) {
+            if (oldLeaderboards[i] == null) {
+                continue;
+            }
+            int slot = slot(oldModes[i], oldSeeds[i], mask);
+            while (leaderboards[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keyModes[slot] = oldModes[i];
+            keySeeds[slot] = oldSeeds[i];
+            leaderboards[slot] = oldLeaderboards[i];
+        }
+    }
+
+    private static int slot(int modeId, long seed, int mask) {
+        long hash = (seed ^ modeId * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ hash >>> 31) & mask;
+    }
+
+    private int modeId(String mode) {
+        Integer id = modeIds.get(mode);
+        if (id != null) {
+            return id;
+        }
+        if (mode.isEmpty() || mode.length() > MODE_CHARS || !isAscii(mode)) {
+            throw new IllegalArgumentException("Mode must be 1 to " + MODE_CHARS + " ASCII characters: " + mode);
+        }
+        modeIds.put(mode, modes.size());
+        modes.add(mode);
+        return modes.size() - 1;
+    }
+
+    /**
+     * The id of the player's name as it is stored: ASCII, at most {@link #PLAYER_CHARS} long.
+     */
+    private int playerId(String player) {
+        Integer id = playerIds.get(player);
+        if (id != null) {
+            return id;
+        }
+        StringBuilder stored = new StringBuilder(Math.min(player.length(), PLAYER_CHARS));
+        for (int i = 0; i < player.length() && i < PLAYER_CHARS; ++i) {
+            char c = player.charAt(i);
+            stored.append(c > 0 && c < 0x80 ? c : '?');
+        }
+        String name = stored.toString();
+        id = playerIds.get(name);
+        if (id == null) {
+            id = players.size();
+            players.add(name);
+            playerIds.put(name, id);
+        }
+        playerIds.put(player, id);
+        return id;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) == 0 || text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void encode(int modeId, long seed, int playerId, int lines, int pieces, long ticks, long timeMillis) {
+        Arrays.fill(scratch, (byte) 0);
+        record.putInt(LINES, lines);
+        record.putLong(SEED, seed);
+        record.putLong(TICKS, ticks);
+        record.putLong(TIME, timeMillis);
+        record.putInt(PIECES, pieces);
+        putName(modes.get(modeId), MODE);
+        putName(players.get(playerId), PLAYER);
+        crc.reset();
+        crc.update(scratch, LINES, RECORD_BYTES - LINES);
+        record.putInt(CRC, (int) crc.getValue());
+    }
+
+    private void putName(String name, int offset) {
+        for (int i = 0; i < name.length(); ++i) {
+            scratch[offset + i] = (byte) name.charAt(i);
+        }
+    }
+
+    /**
+     * Reads a slot into the scratch record and returns whether its checksum holds.
+     */
+    private boolean readRecord(int slot) {
+        map.get(offset(slot), scratch);
+        crc.reset();
+        crc.update(scratch, LINES, RECORD_BYTES - LINES);
+        return record.getInt(CRC) == (int) crc.getValue();
+    }
+
+    /**
+     * Indexes the scratch record as it was ranked when it was added.
+     */
+    private void indexRecord() {
+        String mode = getName(MODE, MODE_CHARS, lastMode);
+        if (mode != lastMode) {
+            lastModeId = modeId(mode);
+            lastMode = mode;
+        }
+        String player = getName(PLAYER, PLAYER_CHARS, lastPlayer);
+        if (player != lastPlayer) {
+            lastPlayerId = playerId(player);
+            lastPlayer = player;
+        }
+        long seed = record.getLong(SEED);
+        int lines = record.getInt(LINES);
+        long ticks = record.getLong(TICKS);
+        Leaderboard leaderboard = leaderboard(lastModeId, seed);
+        if (leaderboard == null) {
+            leaderboard = addLeaderboard(lastModeId, seed);
+        }
+        int rank = leaderboard.rankOf(lines, ticks);
+        if (rank < top && leaderboard.insert(rank, lines, record.getInt(PIECES), ticks, record.getLong(TIME),
+                lastPlayerId, top)) {
+            ++entries;
+        }
+    }
+
+    /**
+     * The name at {@code offset} of the scratch record; {@code previous} if it is the same, since
+     * runs of records mostly share their mode and player.
+     */
+    private String getName(int offset, int maxChars, String previous) {
+        int length = 0;
+        while (length < maxChars && scratch[offset + length] != 0) {
+            ++length;
+        }
+        if (previous != null && previous.length() == length) {
+            int i = 0;
+            while (i < length && scratch[offset + i] == previous.charAt(i)) {
+                ++i;
+            }
+            if (i == length) {
+                return previous;
+            }
+        }
+        return new String(scratch, offset, length, StandardCharsets.US_ASCII);
+    }
+
+    private boolean isZero(int slot) {
+        map.get(offset(slot), scratch);
+        for (byte b : scratch) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() throws IOException {
+        if (capacity == MAX_RECORDS) {
+            throw new IOException("Score store is full: " + path);
+        }
+        capacity = (int) Math.min(MAX_RECORDS, Math.max(INITIAL_RECORDS, 2L * capacity));
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes(capacity));
+    }
+
+    private void compactIfDue() throws IOException {
+        if (records >= Math.max(MIN_COMPACT_RECORDS, 2L * entries)) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the log with only the indexed results, each leaderboard best first so that a
+     * recovery ranks ties the same way, and renames it over the old log. The new file is locked
+     * before the rename, so nobody can open the log unlocked in between.
+     */
+    private void compact() throws IOException {
+        int newCapacity = (int) Math.min(MAX_RECORDS, Math.max(INITIAL_RECORDS, 2L * entries));
+        Path compacted = compactionPath();
+        FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            lock(out);
+            MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, bytes(newCapacity));
+            writeHeader(target);
+            int slot = 0;
+            for (int i = 0; i < leaderboards.length; ++i) {
+                Leaderboard leaderboard = leaderboards[i];
+                for (int rank = 0; leaderboard != null && rank < leaderboard.size; ++rank) {
+                    encode(keyModes[i], keySeeds[i], leaderboard.player(rank), leaderboard.lines(rank),
+                        leaderboard.pieces(rank), leaderboard.ticks(rank), leaderboard.timeMillis(rank));
+                    target.put(offset(slot++), scratch);
+                }
+            }
+            target.force();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+        channel.close();
+        channel = out;
+        capacity = newCapacity;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes(capacity));
+        records = entries;
+        ++compactions;
+    }
+
+    private Path compactionPath() {
+        return path.resolveSibling(path.getFileName() + ".compact");
+    }
+
+    private void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_BYTES);
+        buffer.putInt(HEADER_TOP, top);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private static long bytes(int records) {
+        return HEADER_BYTES + (long) records * RECORD_BYTES;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String mode = null;
+        Long seed = null;
+        int top = DEFAULT_TOP;
+        String file = null;
+
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--mode" -> mode = args[++i];
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--top" -> top = Integer.parseInt(args[++i]);
+                default -> {
+                    if (file != null || args[i].startsWith("--")) {
+                        System.err.println("Usage: ScoreStore <file> [--top K] [--mode M --seed S]");
+                        System.exit(2);
+                    }
+                    file = args[i];
+                }
+            }
+        }
+        if (file == null || (mode == null) != (seed == null)) {
+            System.err.println("Usage: ScoreStore <file> [--top K] [--mode M --seed S]");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        try (ScoreStore store = readOnly(Path.of(file))) {
+            double millis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%d results on %d leaderboards, %d records, %d bytes, opened in %.1f ms"
+                    + ", %d torn records skipped%n",
+                store.size(), store.getLeaderboards(), store.getRecords(), store.getFileBytes(), millis,
+                store.getDiscarded());
+            if (mode != null) {
+                int rank = 0;
+                for (Score score : store.top(mode, seed)) {
+                    if (rank == top) {
+                        break;
+                    }
+                    System.out.printf("%3d. %-24s %6d lines %7d pieces %9d ticks  %tF %<tT%n", ++rank,
+                        score.player(), score.lines(), score.pieces(), score.ticks(), score.timeMillis());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.tetris;
+
+import java.util.Arrays;
+
+/**
+ * Occupancy-only copy of the board for placement search.
+ * It keeps just the row bitmasks and column heights of {@link GameEngine}, so a copy is a few dozen
+ * ints and trying out a placement never touches the live game. A {@link Zobrist} hash of the
+ * filled cells is kept up to date as pieces are placed.
+ */
+public final class SearchBoard {
+    private static final int WIDTH = GameEngine.BOARD_WIDTH;
+    private static final int HEIGHT = GameEngine.BOARD_HEIGHT;
+    private static final int FULL_ROW = (1 << WIDTH) - 1;
+
+    private final int[] rows = new int[HEIGHT];
+    private final int[] heights = new int[WIDTH];
+    private long hash;
+
+    /**
+     * Copies a standard-size board.
+     */
+    public void copyFrom(GameEngine engine) {
+        for (int y = 0; y < HEIGHT; ++y) {
+            rows[y] = (int) engine.getRow(y);
+        }
+        for (int x = 0; x < WIDTH; ++x) {
+            heights[x] = engine.getColumnHeight(x);
+        }
+        hash = Zobrist.board(rows);
+    }
+
+    public void copyFrom(SearchBoard other) {
+        System.arraycopy(other.rows, 0, rows, 0, HEIGHT);
+        System.arraycopy(other.heights, 0, heights, 0, WIDTH);
+        hash = other.hash;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public int getRow(int y) {
+        return rows[y];
+    }
+
+    public int getColumnHeight(int x) {
+        return heights[x];
+    }
+
+    public boolean canPlace(Shape piece, int x0, int y0) {
+        int left = x0 + piece.minX();
+        if (left < 0 || x0 + piece.maxX() >= WIDTH || y0 - piece.maxY() < 0 || y0 - piece.minY() >= HEIGHT) {
+            return false;
+        }
+        int top = y0 - piece.minY();
+        for (int i = piece.maxY() - piece.minY(); i >= 0; --i) {
+            if ((rows[top - i] & (piece.rowMask(i) << left)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link GameEngine#landingY(Shape, int, int)}.
+     */
+    public int landingY(Shape piece, int x0, int y0) {
+        int left = x0 + piece.minX();
+        int landing = Integer.MIN_VALUE;
+        for (int i = piece.maxX() - piece.minX(); i >= 0; --i) {
+            landing = Math.max(landing, heights[left + i] + piece.columnBottom(i));
+        }
+        if (landing <= y0) {
+            return landing;
+        }
+        int y = y0;
+        while (canPlace(piece, x0, y - 1)) {
+            --y;
+        }
+        return y;
+    }
+
+    /**
+     * Locks {@code piece} at a valid position, clears full rows and returns how many were cleared.
+     */
+    public int place(Shape piece, int x0, int y0) {
+        int left = x0 + piece.minX();
+        int top = y0 - piece.minY();
+        int rowCount = piece.maxY() - piece.minY() + 1;
+        for (int i = 0; i < rowCount; ++i) {
+            rows[top - i] |= piece.rowMask(i) << left;
+            for (int bits = piece.rowMask(i); bits != 0; bits &= bits - 1) {
+                hash ^= Zobrist.cell(left + Integer.numberOfTrailingZeros(bits), top - i);
+            }
+        }
+        int bottom = top - rowCount + 1;
+        for (int x = left + piece.maxX() - piece.minX(); x >= left; --x) {
+            heights[x] = Math.max(heights[x], columnTop(x, bottom, top));
+        }
+
+        int cleared = 0;
+        for (int y = bottom; y <= top; ++y) {
+            if (rows[y] == FULL_ROW) {
+                ++cleared;
+            }
+        }
+        if (cleared == 0) {
+            return 0;
+        }
+
+        int write = bottom;
+        for (int read = bottom; read < HEIGHT; ++read) {
+            if (read > top || rows[read] != FULL_ROW) {
+                rows[write++] = rows[read];
+            }
+        }
+        Arrays.fill(rows, write, HEIGHT, 0);
+        hash = Zobrist.board(rows);
+        for (int x = 0; x < WIDTH; ++x) {
+            int h = Math.max(0, heights[x] - cleared);
+            while (h > 0 && (rows[h - 1] & (1 << x)) == 0) {
+                --h;
+            }
+            heights[x] = h;
+        }
+        return cleared;
+    }
+
+    /**
+     * Returns one above the highest filled cell of column {@code x} between rows {@code bottom}
+     * and {@code top}, or 0 if there is none.
+     */
+    private int columnTop(int x, int bottom, int top) {
+        for (int y = top; y >= bottom; --y) {
+            if ((rows[y] & (1 << x)) != 0) {
+                return y + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Sum of the column heights.
+     */
+    public int aggregateHeight() {
+        int sum = 0;
+        for (int h : heights) {
+            sum += h;
+        }
+        return sum;
+    }
+
+    /**
+     * Sum of the height differences between neighbouring columns.
+     */
+    public int bumpiness() {
+        int sum = 0;
+        for (int x = 1; x < WIDTH; ++x) {
+            sum += Math.abs(heights[x] - heights[x - 1]);
+        }
+        return sum;
+    }
+
+    /**
+     * Number of empty cells with a filled cell somewhere above them in the same column.
+     */
+    public int holes() {
+        int top = 0;
+        for (int h : heights) {
+            top = Math.max(top, h);
+        }
+        int covered = 0;
+        int holes = 0;
+        for (int y = top - 1; y >= 0; --y) {
+            holes += Integer.bitCount(covered & ~rows[y]);
+            covered |= rows[y];
+        }
+        return holes;
+    }
+}
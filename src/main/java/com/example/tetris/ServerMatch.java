@@ -0,0 +1,209 @@
+package com.example.tetris;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authoritative two-player match run by the {@link MatchServer} on its {@link TickWheel}.
+ * Each tick applies the inputs the players sent since the last one, advances both games, and
+ * turns line clears into garbage for the opponent. Everything that happened is written to each
+ * player as a {@link GameStream}. The match ends when a player tops out or disconnects; then the
+ * result is flushed and both connections are closed. Ticks run on one wheel thread at a time.
+ * Finished players can be handed to another thread for the high scores, so the wheel never
+ * writes to disk.
+ */
+final class ServerMatch implements TickWheel.Task {
+    private static final int CLOSE_TICKS = GameEngine.TICKS_PER_SECOND;
+
+    private final Player[] players;
+    private final LongAdder bytesOut;
+    private final Queue<Player> finished;
+    private boolean over;
+    private int closingTicks;
+    private boolean done;
+
+    /**
+     * @param finished receives both players when the match is over, or null
+     */
+    ServerMatch(Player first, Player second, long seed, String generator, LongAdder bytesOut,
+            Queue<Player> finished) {
+        players = new Player[] {first, second};
+        this.bytesOut = bytesOut;
+        this.finished = finished;
+        first.start(second, seed, generator);
+        second.start(first, seed + 1, generator);
+    }
+
+    @Override
+    public void tick() {
+        if (over) {
+            boolean flushed = true;
+            for (Player player : players) {
+                flushed &= player.flush(bytesOut);
+            }
+            if (flushed || ++closingTicks > CLOSE_TICKS) {
+                for (Player player : players) {
+                    player.close();
+                }
+                done = true;
+            }
+            return;
+        }
+
+        for (Player player : players) {
+            player.play();
+        }
+        for (Player player : players) {
+            player.receiveGarbage();
+        }
+        boolean firstOut = players[0].isOut();
+        boolean secondOut = players[1].isOut();
+        if (firstOut || secondOut) {
+            over = true;
+            players[0].finish(!firstOut);
+            players[1].finish(!secondOut);
+            if (finished != null) {
+                finished.offer(players[0]);
+                finished.offer(players[1]);
+            }
+        }
+        for (Player player : players) {
+            player.stream.syncIfIdle(player.out, player.engine.getTicks());
+            player.flush(bytesOut);
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * One connected client. The selector thread queues its inputs; the wheel plays them.
+     */
+    static final class Player implements GameListener {
+        private static final int INPUT_QUEUE = 64;
+        private static final int OUT_BYTES = 8 * 1024;
+
+        final SocketChannel channel;
+        private final String name;
+        final MpscLongQueue inputs = new MpscLongQueue(INPUT_QUEUE);
+        private volatile boolean disconnected;
+        private final GameStream stream = new GameStream();
+        private final ByteBuffer out = ByteBuffer.allocate(OUT_BYTES);
+        private GameEngine engine;
+        private Player opponent;
+        private SplittableRandom holes;
+        private int pendingGarbage;
+        private long seed;
+
+        Player(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            name = ((InetSocketAddress) channel.getRemoteAddress()).getHostString();
+        }
+
+        private void start(Player opponent, long seed, String generator) {
+            this.opponent = opponent;
+            this.seed = seed;
+            inputs.drain(value -> { });
+            engine = new GameEngine(this, PieceGenerator.forName(generator, seed));
+            engine.start(seed);
+            holes = new SplittableRandom(seed);
+            stream.hello(out, seed, generator);
+        }
+
+        /**
+         * Adds the result of a finished game to {@code scores} under the client's address.
+         */
+        void addScore(ScoreStore scores, String mode) throws IOException {
+            scores.add(mode, seed, name, engine.getLinesRemoved(), engine.getPiecesPlaced(), engine.getTicks());
+        }
+
+        /**
+         * Called from the selector thread when the connection is gone.
+         */
+        void disconnect() {
+            disconnected = true;
+        }
+
+        boolean isDisconnected() {
+            return disconnected;
+        }
+
+        private void play() {
+            inputs.drain(this::apply);
+            engine.tick();
+        }
+
+        private void apply(long ordinal) {
+            GameInput input = GameInput.of((int) ordinal);
+            if (engine.apply(input)) {
+                stream.input(out, engine.getTicks(), input);
+            }
+        }
+
+        private void receiveGarbage() {
+            if (pendingGarbage > 0 && engine.isStarted()) {
+                int hole = holes.nextInt(GameEngine.BOARD_WIDTH);
+                engine.addGarbage(pendingGarbage, hole);
+                stream.garbage(out, engine.getTicks(), pendingGarbage, hole);
+                pendingGarbage = 0;
+            }
+        }
+
+        private boolean isOut() {
+            return disconnected || !engine.isStarted();
+        }
+
+        private void finish(boolean won) {
+            engine.stop();
+            stream.result(out, engine.getTicks(), won);
+        }
+
+        /**
+         * Writes what the socket takes now; returns whether everything was written. A client that
+         * stops reading is dropped.
+         */
+        private boolean flush(LongAdder bytesOut) {
+            if (disconnected) {
+                out.clear();
+                return true;
+            }
+            if (out.position() == 0) {
+                return true;
+            }
+            try {
+                out.flip();
+                bytesOut.add(channel.write(out));
+                out.compact();
+                if (out.position() > OUT_BYTES / 2) {
+                    throw new IOException("client is not reading");
+                }
+                return out.position() == 0;
+            } catch (IOException e) {
+                disconnected = true;
+                out.clear();
+                return true;
+            }
+        }
+
+        private void close() {
+            disconnected = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing more to send
+            }
+        }
+
+        @Override
+        public void linesCleared(int lines, int totalLines) {
+            opponent.pendingGarbage += VersusMatch.attackFor(lines);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Generator that deals each of the seven pieces once per shuffled bag, so droughts are bounded.
+ */
+public final class SevenBagGenerator extends BufferedPieceGenerator {
+    private final Tetromino[] bag = PIECES.clone();
+
+    public SevenBagGenerator(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public String name() {
+        return "bag";
+    }
+
+    @Override
+    public void reset(long seed) {
+        super.reset(seed);
+        System.arraycopy(PIECES, 0, bag, 0, bag.length);
+    }
+
+    /**
+     * Also writes the order the bag was last shuffled into, which the next shuffle starts from.
+     */
+    @Override
+    public void saveState(ByteBuffer out) {
+        super.saveState(out);
+        for (Tetromino piece : bag) {
+            out.put((byte) piece.ordinal());
+        }
+    }
+
+    @Override
+    public void loadState(ByteBuffer in) {
+        super.loadState(in);
+        for (int i = 0; i < bag.length; ++i) {
+            bag[i] = readPiece(in);
+        }
+    }
+
+    @Override
+    protected void refill(int room) {
+        for (int dealt = 0; dealt + bag.length <= room; dealt += bag.length) {
+            for (int i = bag.length - 1; i > 0; --i) {
+                int j = nextInt(i + 1);
+                Tetromino swap = bag[i];
+                bag[i] = bag[j];
+                bag[j] = swap;
+            }
+            for (Tetromino piece : bag) {
+                push(piece);
+            }
+        }
+    }
+}
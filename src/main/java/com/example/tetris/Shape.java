@@ -1,100 +1,141 @@
 package com.example.tetris;
 
-import java.util.Random;
+import java.util.Arrays;
 
 /**
- * Represents a tetromino piece that can be rotated and placed on the board.
+ * Immutable tetromino piece in one of its four rotation states.
+ * All rotation states, bounding boxes and row masks are precomputed at class initialization,
+ * so rotating or respawning a piece is a table lookup and never allocates.
  */
 public final class Shape {
-    private Tetromino pieceShape;
-    private final int[][] coords;
-    private static final Random RANDOM = new Random();
+    public static final int ROTATIONS = 4;
+
+    private static final Tetromino[] SHAPES = Tetromino.values();
+    private static final Shape[][] TABLE = buildTable();
+
+    private final Tetromino pieceShape;
+    private final int rotation;
+    private final int[] xs = new int[4];
+    private final int[] ys = new int[4];
+    private final int minX;
+    private final int maxX;
+    private final int minY;
+    private final int maxY;
+    private final int[] rowMasks;
+    private final int[] columnBottoms;
+
+    private Shape(Tetromino pieceShape, int rotation, int[][] coords) {
+        this.pieceShape = pieceShape;
+        this.rotation = rotation;
+        int lowX = coords[0][0];
+        int highX = coords[0][0];
+        int lowY = coords[0][1];
+        int highY = coords[0][1];
+        for (int i = 0; i < 4; ++i) {
+            xs[i] = coords[i][0];
+            ys[i] = coords[i][1];
+            lowX = Math.min(lowX, xs[i]);
+            highX = Math.max(highX, xs[i]);
+            lowY = Math.min(lowY, ys[i]);
+            highY = Math.max(highY, ys[i]);
+        }
+        minX = lowX;
+        maxX = highX;
+        minY = lowY;
+        maxY = highY;
 
-    public Shape() {
-        coords = new int[4][2];
-        setShape(Tetromino.NO_SHAPE);
-    }
+        rowMasks = new int[maxY - minY + 1];
+        for (int i = 0; i < 4; ++i) {
+            rowMasks[ys[i] - minY] |= 1 << (xs[i] - minX);
+        }
 
-    private Shape(Shape other) {
-        coords = new int[4][2];
-        pieceShape = other.pieceShape;
+        columnBottoms = new int[maxX - minX + 1];
+        Arrays.fill(columnBottoms, Integer.MIN_VALUE);
         for (int i = 0; i < 4; ++i) {
-            System.arraycopy(other.coords[i], 0, coords[i], 0, 2);
+            columnBottoms[xs[i] - minX] = Math.max(columnBottoms[xs[i] - minX], ys[i]);
         }
     }
 
-    public void setShape(Tetromino shape) {
-        int[][] shapeCoords = shape.getCoords();
-        for (int i = 0; i < 4; ++i) {
-            System.arraycopy(shapeCoords[i], 0, coords[i], 0, 2);
+    private static Shape[][] buildTable() {
+        Shape[][] table = new Shape[SHAPES.length][ROTATIONS];
+        for (Tetromino type : SHAPES) {
+            int[][] coords = type.getCoords();
+            for (int r = 0; r < ROTATIONS; ++r) {
+                table[type.ordinal()][r] = new Shape(type, r, coords);
+                if (type != Tetromino.SQUARE_SHAPE) {
+                    for (int[] cell : coords) {
+                        int x = cell[0];
+                        cell[0] = -cell[1];
+                        cell[1] = x;
+                    }
+                }
+            }
         }
-        pieceShape = shape;
+        return table;
+    }
+
+    public static Shape of(Tetromino shape) {
+        return TABLE[shape.ordinal()][0];
     }
 
-    public void setRandomShape() {
-        Tetromino[] shapes = Tetromino.values();
-        setShape(shapes[RANDOM.nextInt(shapes.length - 1) + 1]);
+    public static Shape of(Tetromino shape, int rotation) {
+        return TABLE[shape.ordinal()][rotation & (ROTATIONS - 1)];
     }
 
     public Tetromino getShape() {
         return pieceShape;
     }
 
+    public int getRotation() {
+        return rotation;
+    }
+
     public int x(int index) {
-        return coords[index][0];
+        return xs[index];
     }
 
     public int y(int index) {
-        return coords[index][1];
+        return ys[index];
     }
 
     public Shape rotateLeft() {
-        if (pieceShape == Tetromino.SQUARE_SHAPE) {
-            return this;
-        }
-
-        Shape result = new Shape();
-        result.pieceShape = pieceShape;
-
-        for (int i = 0; i < 4; ++i) {
-            result.coords[i][0] = y(i);
-            result.coords[i][1] = -x(i);
-        }
-        return result;
+        return TABLE[pieceShape.ordinal()][(rotation + ROTATIONS - 1) & (ROTATIONS - 1)];
     }
 
     public Shape rotateRight() {
-        if (pieceShape == Tetromino.SQUARE_SHAPE) {
-            return this;
-        }
+        return TABLE[pieceShape.ordinal()][(rotation + 1) & (ROTATIONS - 1)];
+    }
 
-        Shape result = new Shape();
-        result.pieceShape = pieceShape;
+    public int minX() {
+        return minX;
+    }
 
-        for (int i = 0; i < 4; ++i) {
-            result.coords[i][0] = -y(i);
-            result.coords[i][1] = x(i);
-        }
-        return result;
+    public int maxX() {
+        return maxX;
     }
 
-    public Shape copy() {
-        return new Shape(this);
+    public int minY() {
+        return minY;
     }
 
-    public int minX() {
-        int min = coords[0][0];
-        for (int i = 1; i < 4; i++) {
-            min = Math.min(min, coords[i][0]);
-        }
-        return min;
+    public int maxY() {
+        return maxY;
     }
 
-    public int minY() {
-        int min = coords[0][1];
-        for (int i = 1; i < 4; i++) {
-            min = Math.min(min, coords[i][1]);
-        }
-        return min;
+    /**
+     * Returns the occupied cells of the row at shape offset {@code minY() + index}
+     * as a bitmask whose bit 0 is column {@code minX()}.
+     */
+    public int rowMask(int index) {
+        return rowMasks[index];
+    }
+
+    /**
+     * Returns the largest shape {@code y}, i.e. the lowest cell on the board, of the column at
+     * shape offset {@code minX() + index}. A piece at board row {@code y0} has that cell at
+     * {@code y0 - columnBottom(index)}.
+     */
+    public int columnBottom(int index) {
+        return columnBottoms[index];
     }
 }
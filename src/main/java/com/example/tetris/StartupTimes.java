@@ -0,0 +1,125 @@
+package com.example.tetris;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Milestones of one application start, in milliseconds since the JVM was launched. The first
+ * frame and the first playable tick are the critical path; audio and JMX are prepared on
+ * background threads and may be ready before or after them. With a report requested, the
+ * milestones go to stderr once the first frame is shown and the first tick of a game has run, and
+ * background milestones reached later follow as they come.
+ */
+final class StartupTimes {
+    enum Milestone {
+        MAIN("main", false),
+        WINDOW("window shown", false),
+        FIRST_FRAME("first frame", false),
+        FIRST_TICK("first playable tick", false),
+        AUDIO_READY("audio ready", true),
+        AUDIO_UNAVAILABLE("no audio device", true),
+        MBEAN_REGISTERED("metrics MBean", true);
+
+        private final String label;
+        private final boolean background;
+
+        Milestone(String label, boolean background) {
+            this.label = label;
+            this.background = background;
+        }
+    }
+
+    private static final Milestone[] MILESTONES = Milestone.values();
+
+    private final long launchNanos;
+    private final boolean report;
+    private final AtomicLongArray nanos = new AtomicLongArray(MILESTONES.length);
+    private boolean reported;
+
+    /**
+     * @param report whether to print the milestones to stderr
+     */
+    StartupTimes(boolean report) {
+        long sinceLaunchMillis = ProcessHandle.current().info().startInstant()
+            .map(launch -> System.currentTimeMillis() - launch.toEpochMilli())
+            .orElse(0L);
+        launchNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(sinceLaunchMillis);
+        this.report = report;
+    }
+
+    /**
+     * Records the first time {@code milestone} is reached; later calls only cost a volatile read.
+     */
+    void mark(Milestone milestone) {
+        int index = milestone.ordinal();
+        if (nanos.get(index) != 0 || !nanos.compareAndSet(index, 0, System.nanoTime())) {
+            return;
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+        if (report) {
+            print(milestone);
+        }
+    }
+
+    /**
+     * Waits until {@code milestone} is reached or {@code timeoutMillis} have passed, so background
+     * work can stay off the CPU while the first frame is being built.
+     */
+    synchronized void await(Milestone milestone, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long remaining;
+        while (!isReached(milestone) && (remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    boolean isReached(Milestone milestone) {
+        return nanos.get(milestone.ordinal()) != 0;
+    }
+
+    /**
+     * Milliseconds from the JVM launch to {@code milestone}, or -1 if it was not reached yet.
+     */
+    long millis(Milestone milestone) {
+        long reached = nanos.get(milestone.ordinal());
+        return reached == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(reached - launchNanos);
+    }
+
+    private synchronized void print(Milestone reached) {
+        if (reported) {
+            if (reached.background) {
+                System.err.printf("startup: %s at %d ms%n", reached.label, millis(reached));
+            }
+            return;
+        }
+        if (!isReached(Milestone.FIRST_FRAME) || !isReached(Milestone.FIRST_TICK)) {
+            return;
+        }
+        reported = true;
+        StringBuilder line = new StringBuilder("startup (ms since JVM launch):");
+        appendMilestones(line, false);
+        line.append("; in background:");
+        appendMilestones(line, true);
+        System.err.println(line);
+    }
+
+    private void appendMilestones(StringBuilder line, boolean background) {
+        String separator = " ";
+        for (Milestone milestone : MILESTONES) {
+            if (milestone.background != background) {
+                continue;
+            }
+            long millis = millis(milestone);
+            boolean silent = isReached(Milestone.AUDIO_UNAVAILABLE);
+            if (millis < 0 && (milestone == Milestone.AUDIO_UNAVAILABLE
+                    || milestone == Milestone.AUDIO_READY && silent)) {
+                continue;
+            }
+            line.append(separator).append(milestone.label).append(' ');
+            line.append(millis < 0 ? "pending" : Long.toString(millis));
+            separator = ", ";
+        }
+    }
+}
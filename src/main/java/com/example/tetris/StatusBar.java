@@ -0,0 +1,62 @@
+package com.example.tetris;
+
+import javax.swing.JLabel;
+import javax.swing.Timer;
+
+/**
+ * Status line under the board. It reads the game's {@link GameEventRing} on the event dispatch
+ * thread with a consumer of its own and sets the text once per batch of events.
+ */
+public final class StatusBar extends JLabel {
+    private static final int POLL_MILLIS = 16;
+
+    private final GameEventRing.Handler onEvent = this::onEvent;
+    private GameEventRing.Consumer events;
+    private String message;
+    private int lines;
+    private boolean over;
+
+    public StatusBar(String text) {
+        super(text);
+    }
+
+    /**
+     * Starts showing the score, pause and messages of the game publishing to {@code ring}.
+     */
+    void follow(GameEventRing ring) {
+        events = ring.consumer();
+        new Timer(POLL_MILLIS, e -> poll()).start();
+    }
+
+    private void poll() {
+        if (events.poll(onEvent) > 0) {
+            setText(message != null ? message
+                : String.format(over ? "Игра окончена. Счёт: %d" : "Счёт: %d", lines));
+        }
+    }
+
+    private void onEvent(int type, long tick, int first, int second, long value, Object text) {
+        switch (type) {
+            case GameEventRing.STARTED -> showScore(first, false);
+            case GameEventRing.LINES -> showScore(second, false);
+            case GameEventRing.GAME_OVER -> showScore(first, true);
+            case GameEventRing.PAUSED -> {
+                if (first == 1) {
+                    message = "Пауза";
+                } else {
+                    showScore(second, false);
+                }
+            }
+            case GameEventRing.MESSAGE -> message = (String) text;
+            default -> {
+                // leaves the text as it is
+            }
+        }
+    }
+
+    private void showScore(int lines, boolean over) {
+        message = null;
+        this.lines = lines;
+        this.over = over;
+    }
+}
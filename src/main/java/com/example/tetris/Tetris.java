@@ -8,21 +8,38 @@ import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 
 /**
- * Entry point for the Tetris game.
+ * Entry point for the Tetris game. The audio is prepared on a background thread while the window
+ * is built, and the JMX registration waits until the first frame is shown, so the first frame
+ * waits for neither; {@code -Dtetris.startupStats=true} reports how long each took.
  */
 public final class Tetris extends JFrame {
-    private Tetris() {
-        initUI();
+    private static final long REGISTRATION_DELAY_MILLIS = 2000;
+
+    /**
+     * Window growth per column or visible row beyond the standard board.
+     */
+    private static final int SQUARE_SIZE = 16;
+
+    private Tetris(Metrics metrics, ProceduralAudio audio) {
+        initUI(metrics, audio);
     }
 
-    private void initUI() {
-        JLabel statusbar = new JLabel("Нажмите Enter для старта, P - пауза");
+    private void initUI(Metrics metrics, ProceduralAudio audio) {
+        StatusBar statusbar = new StatusBar("Нажмите Enter для старта, P - пауза");
         add(statusbar, BorderLayout.SOUTH);
 
-        ProceduralAudio audio = new ProceduralAudio();
-        NextPiecePanel nextPiecePanel = new NextPiecePanel();
-        Board board = new Board(statusbar, nextPiecePanel, audio);
+        TileSprites sprites = new TileSprites();
+        NextPiecePanel nextPiecePanel = new NextPiecePanel(sprites);
+        OpponentPanel opponentPanel = System.getProperty("tetris.versus") == null ? null : new OpponentPanel(sprites);
+        Board board = new Board(opponentPanel, sprites, metrics);
+        statusbar.follow(board.getEvents());
+        nextPiecePanel.follow(board.getEvents());
+        audio.follow(board.getEvents());
+        metrics.follow(board.getEvents());
         add(board, BorderLayout.CENTER);
+        if (opponentPanel != null) {
+            add(opponentPanel, BorderLayout.WEST);
+        }
 
         JPanel sidePanel = new JPanel(new BorderLayout());
         JLabel nextLabel = new JLabel("Следующая фигура", SwingConstants.CENTER);
@@ -31,7 +48,8 @@ public final class Tetris extends JFrame {
         add(sidePanel, BorderLayout.EAST);
 
         setTitle("Тетрис");
-        setSize(320, 420);
+        setSize((opponentPanel == null ? 320 : 460) + (board.getColumns() - GameEngine.BOARD_WIDTH) * SQUARE_SIZE,
+            420 + (board.getViewRows() - GameEngine.BOARD_HEIGHT) * SQUARE_SIZE);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
@@ -40,9 +58,28 @@ public final class Tetris extends JFrame {
     }
 
     public static void main(String[] args) {
+        StartupTimes startup = new StartupTimes(Boolean.getBoolean("tetris.startupStats"));
+        startup.mark(StartupTimes.Milestone.MAIN);
+        Metrics metrics = new Metrics(startup);
+        metrics.setEnabled(Boolean.getBoolean("tetris.metrics"));
+        ProceduralAudio audio = new ProceduralAudio();
+        audio.setMetrics(metrics);
+        audio.start();
+        Thread registration = new Thread(() -> {
+            try {
+                startup.await(StartupTimes.Milestone.FIRST_FRAME, REGISTRATION_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            metrics.register();
+        }, "TetrisMetricsRegistration");
+        registration.setDaemon(true);
+        registration.start();
+
         EventQueue.invokeLater(() -> {
-            Tetris game = new Tetris();
+            Tetris game = new Tetris(metrics, audio);
             game.setVisible(true);
+            startup.mark(StartupTimes.Milestone.WINDOW);
         });
     }
 }
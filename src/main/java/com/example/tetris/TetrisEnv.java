@@ -0,0 +1,66 @@
+package com.example.tetris;
+
+/**
+ * Gym-style single-game environment: {@link #reset(long)} starts an episode and
+ * {@link #step(int)} applies one action and advances one tick. It is a {@link VectorEnv} of one
+ * game without auto-reset, so actions and observations mean the same as there, and the grid is
+ * the same array between steps. Instances are not thread-safe.
+ */
+public final class TetrisEnv {
+    private final VectorEnv env;
+
+    public TetrisEnv(String generator) {
+        env = new VectorEnv(1, generator, false, null);
+    }
+
+    public void reset(long seed) {
+        env.reset(0, seed);
+    }
+
+    /**
+     * Applies {@code action} and returns the number of lines it cleared.
+     */
+    public int step(int action) {
+        env.actions()[0] = action;
+        env.step();
+        return (int) env.rewards()[0];
+    }
+
+    public boolean isDone() {
+        return env.dones()[0];
+    }
+
+    /**
+     * Locked cells, 0 or 1 at {@code y * GameEngine.BOARD_WIDTH + x} with row 0 at the bottom.
+     */
+    public byte[] getGrid() {
+        return env.grids();
+    }
+
+    /**
+     * {@link Tetromino} ordinal of the falling piece, 0 while none is falling.
+     */
+    public int getPiece() {
+        return env.pieces()[0];
+    }
+
+    public int getRotation() {
+        return env.rotations()[0];
+    }
+
+    public int getPieceX() {
+        return env.pieceXs()[0];
+    }
+
+    public int getPieceY() {
+        return env.pieceYs()[0];
+    }
+
+    public int getNextPiece() {
+        return env.nextPieces()[0];
+    }
+
+    public int getLinesCleared() {
+        return env.lines()[0];
+    }
+}
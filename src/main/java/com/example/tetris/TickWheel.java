@@ -0,0 +1,185 @@
+package com.example.tetris;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shared timing wheel that runs many fixed-rate tasks from one timer thread instead of a thread
+ * per task. One tick period is split into slots. Each task joins the least loaded slot and runs
+ * once per period at that slot's deadline, so thousands of matches spread their work evenly over
+ * the period instead of all waking at its start. With a pool, a slot's tasks run in parallel
+ * chunks.
+ *
+ * <p>The lateness of each slot's last task against the slot's deadline is recorded as the tick
+ * jitter. When the wheel falls more than a few ticks behind, it resets its schedule rather than
+ * bursting to catch up, and counts the lag.
+ */
+public final class TickWheel implements Runnable {
+    private static final int TASKS_PER_CHUNK = 64;
+    private static final long MAX_LAG_NANOS = 5 * GameLoop.TICK_NANOS;
+
+    /**
+     * Work ticked by the wheel; a task leaves the wheel once it reports that it is done.
+     */
+    public interface Task {
+        void tick();
+
+        boolean isDone();
+    }
+
+    private final List<List<Task>> slots = new ArrayList<>();
+    private final long slotNanos;
+    private final ForkJoinPool pool;
+    private final Queue<Task> added = new ConcurrentLinkedQueue<>();
+    private final Distribution latenessMicros = new Distribution();
+    private volatile int size;
+    private volatile long lagResets;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param slots number of slots per tick period
+     * @param pool pool for running a slot's tasks in parallel, or null to run them on the timer thread
+     */
+    public TickWheel(int slots, ForkJoinPool pool) {
+        for (int i = 0; i < slots; ++i) {
+            this.slots.add(new ArrayList<>());
+        }
+        slotNanos = GameLoop.TICK_NANOS / slots;
+        this.pool = pool;
+    }
+
+    /**
+     * Schedules {@code task} from the next slot on; safe to call from any thread.
+     */
+    public void add(Task task) {
+        added.add(task);
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "TetrisTickWheel");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        thread = null;
+    }
+
+    /**
+     * Number of tasks on the wheel.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Times the schedule was reset because the wheel fell too far behind.
+     */
+    public long getLagResets() {
+        return lagResets;
+    }
+
+    /**
+     * Copies the lateness of slot completions since the last call, in microseconds, into
+     * {@code into} and starts a new interval.
+     */
+    public void drainLateness(Distribution into) {
+        synchronized (latenessMicros) {
+            into.merge(latenessMicros);
+            latenessMicros.reset();
+        }
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime();
+        int slot = 0;
+        while (running) {
+            parkUntil(deadline);
+            Task task;
+            while ((task = added.poll()) != null) {
+                leastLoaded().add(task);
+                ++size;
+            }
+
+            List<Task> tasks = slots.get(slot);
+            if (pool == null || tasks.size() <= TASKS_PER_CHUNK) {
+                for (Task each : tasks) {
+                    each.tick();
+                }
+            } else {
+                pool.invoke(new Chunk(tasks, 0, tasks.size()));
+            }
+            int before = tasks.size();
+            tasks.removeIf(Task::isDone);
+            size -= before - tasks.size();
+
+            long now = System.nanoTime();
+            synchronized (latenessMicros) {
+                latenessMicros.record(Math.max(0, now - deadline) / 1000);
+            }
+            slot = (slot + 1) % slots.size();
+            deadline += slotNanos;
+            if (now - deadline > MAX_LAG_NANOS) {
+                deadline = now;
+                ++lagResets;
+            }
+        }
+    }
+
+    /**
+     * Parks until {@code deadline} without spinning; with many slots per tick, spinning before
+     * each one would keep a core busy.
+     */
+    static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private List<Task> leastLoaded() {
+        List<Task> least = slots.get(0);
+        for (List<Task> tasks : slots) {
+            if (tasks.size() < least.size()) {
+                least = tasks;
+            }
+        }
+        return least;
+    }
+
+    private static final class Chunk extends RecursiveAction {
+        private final List<Task> tasks;
+        private final int from;
+        private final int to;
+
+        Chunk(List<Task> tasks, int from, int to) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASKS_PER_CHUNK) {
+                for (int i = from; i < to; ++i) {
+                    tasks.get(i).tick();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Chunk(tasks, from, mid), new Chunk(tasks, mid, to));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.tetris;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Cache of pre-rendered beveled tiles, one image per cell color and cell size.
+ * Tiles are rendered at device resolution, so HiDPI scaling does not blur them, and are only
+ * rebuilt when a new cell size is requested. Instances are not thread-safe.
+ */
+public final class TileSprites {
+    private static final Color[] COLORS = {
+        new Color(0, 0, 0),
+        new Color(204, 102, 102),
+        new Color(102, 204, 102),
+        new Color(102, 102, 204),
+        new Color(204, 204, 102),
+        new Color(204, 102, 204),
+        new Color(102, 204, 204),
+        new Color(218, 170, 0),
+        new Color(128, 128, 128)
+    };
+    private static final int SIZES = 4;
+
+    private final SpriteSet[] sets = new SpriteSet[SIZES];
+    private int nextSlot;
+
+    public static Color colorOf(Tetromino shape) {
+        return COLORS[shape.ordinal()];
+    }
+
+    /**
+     * Draws the tile of {@code shape} covering the cell at ({@code x}, {@code y}) in user space.
+     */
+    public void draw(Graphics g, Tetromino shape, int x, int y, int width, int height) {
+        draw(g, shape.ordinal(), x, y, width, height);
+    }
+
+    /**
+     * Draws a tile of a cell color as in {@link GameEngine#colorAt(int, int)}.
+     */
+    public void draw(Graphics g, int color, int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        AffineTransform transform = ((Graphics2D) g).getTransform();
+        int pixelWidth = (int) Math.round(width * transform.getScaleX());
+        int pixelHeight = (int) Math.round(height * transform.getScaleY());
+        g.drawImage(setFor(pixelWidth, pixelHeight).images[color], x, y, width, height, null);
+    }
+
+    private SpriteSet setFor(int width, int height) {
+        for (SpriteSet set : sets) {
+            if (set != null && set.width == width && set.height == height) {
+                return set;
+            }
+        }
+        SpriteSet set = new SpriteSet(width, height);
+        sets[nextSlot] = set;
+        nextSlot = (nextSlot + 1) % SIZES;
+        return set;
+    }
+
+    private static final class SpriteSet {
+        final int width;
+        final int height;
+        final BufferedImage[] images = new BufferedImage[COLORS.length];
+
+        SpriteSet(int width, int height) {
+            this.width = Math.max(1, width);
+            this.height = Math.max(1, height);
+            for (int i = 0; i < COLORS.length; ++i) {
+                images[i] = render(COLORS[i], this.width, this.height);
+            }
+        }
+
+        private static BufferedImage render(Color color, int width, int height) {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics g = image.getGraphics();
+            g.setColor(color);
+            g.fillRect(1, 1, width - 2, height - 2);
+
+            g.setColor(color.brighter());
+            g.drawLine(0, height - 1, 0, 0);
+            g.drawLine(0, 0, width - 1, 0);
+
+            g.setColor(color.darker());
+            g.drawLine(1, height - 1, width - 1, height - 1);
+            g.drawLine(width - 1, height - 1, width - 1, 1);
+            g.dispose();
+            return image;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.tetris;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, lock-free cache of search results keyed by {@link Zobrist} hashes.
+ * Entries sit in two-slot buckets: the first slot keeps the result that covered the most pieces,
+ * the second always takes the newest one. Each entry is stored as its value and the value XORed
+ * with the key, so an entry torn by concurrent writers simply fails the key check and reads as
+ * a miss. Any number of threads may probe and store at once.
+ */
+public final class TranspositionTable {
+    public static final int DEFAULT_MEGABYTES = 16;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final long DEPTH_MASK = 0xF;
+
+    private final long[] entries;
+    private final int bucketMask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Creates a table of at most {@code megabytes} MB, rounded down to a power-of-two entry count.
+     */
+    public TranspositionTable(int megabytes) {
+        long capacity = Long.highestOneBit(Math.max(4, ((long) megabytes << 20) / ENTRY_BYTES));
+        entries = new long[Math.toIntExact(2 * capacity)];
+        bucketMask = (int) (capacity / 2) - 1;
+    }
+
+    /**
+     * Returns the value stored for {@code key} covering {@code depth} pieces, or NaN if there is none.
+     */
+    public double get(long key, int depth) {
+        probes.increment();
+        long tag = tag(key, depth);
+        int i = slot(key);
+        for (int end = i + 4; i < end; i += 2) {
+            long value = entries[i + 1];
+            if ((entries[i] ^ value) == tag) {
+                hits.increment();
+                return Double.longBitsToDouble(value);
+            }
+        }
+        return Double.NaN;
+    }
+
+    public void put(long key, int depth, double value) {
+        long tag = tag(key, depth);
+        int i = slot(key);
+        long kept = entries[i] ^ entries[i + 1];
+        if (kept != tag && (kept & DEPTH_MASK) > depth) {
+            i += 2;
+        }
+        long bits = Double.doubleToRawLongBits(value);
+        entries[i + 1] = bits;
+        entries[i] = tag ^ bits;
+    }
+
+    private static long tag(long key, int depth) {
+        return (key & ~DEPTH_MASK) | depth;
+    }
+
+    private int slot(long key) {
+        return ((int) (key >>> 32) & bucketMask) << 2;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public double getHitRate() {
+        long probed = probes.sum();
+        return probed == 0 ? 0 : (double) hits.sum() / probed;
+    }
+
+    public long getBytes() {
+        return (long) entries.length * Long.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d entries, %.1f MB, %d probes, %.1f%% hits", entries.length / 2,
+            getBytes() / (double) (1 << 20), getProbes(), 100 * getHitRate());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.tetris;
+
+/**
+ * Generator that draws every piece independently with equal probability.
+ */
+public final class UniformGenerator extends BufferedPieceGenerator {
+    public UniformGenerator(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public String name() {
+        return "uniform";
+    }
+
+    @Override
+    protected void refill(int room) {
+        for (int i = 0; i < room; ++i) {
+            push(PIECES[nextInt(PIECES.length)]);
+        }
+    }
+}
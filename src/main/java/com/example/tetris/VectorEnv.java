@@ -0,0 +1,251 @@
+package com.example.tetris;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batch of headless games stepped together for reinforcement learning.
+ * The caller writes one action per game into {@link #actions()} and calls {@link #step()}; every
+ * game applies its action and advances one tick, and the observations, rewards and done flags are
+ * written into flat primitive arrays indexed by game, which stay the same objects for the life of
+ * the batch. Stepping allocates nothing beyond reseeding the piece generator when a finished game
+ * restarts, and with a pool the games are stepped in parallel chunks.
+ * <p>
+ * Actions are {@link #NOOP} or {@code 1 + } a {@link GameInput} ordinal. The grid holds the
+ * locked cells only, as 0 or 1 at {@code game * GRID_SIZE + y * BOARD_WIDTH + x} with row 0 at
+ * the bottom; the falling piece is described by its type, rotation and position arrays.
+ * Instances are not thread-safe.
+ */
+public final class VectorEnv {
+    public static final int NOOP = 0;
+    public static final int ACTIONS = GameInput.values().length + 1;
+    public static final int GRID_SIZE = GameEngine.BOARD_WIDTH * GameEngine.BOARD_HEIGHT;
+    private static final int GAMES_PER_CHUNK = 256;
+
+    private final GameEngine[] engines;
+    private final boolean autoReset;
+    private final ForkJoinPool pool;
+    private final StepAll stepAll;
+    private long baseSeed;
+
+    private final int[] actions;
+    private final byte[] grids;
+    private final int[] pieces;
+    private final int[] rotations;
+    private final int[] pieceXs;
+    private final int[] pieceYs;
+    private final int[] nextPieces;
+    private final int[] lines;
+    private final float[] rewards;
+    private final boolean[] dones;
+    private final int[] episodes;
+    private final int[] gridVersions;
+
+    /**
+     * @param generator piece generator name, as for {@link PieceGenerator#forName(String, long)}
+     * @param autoReset whether a finished game restarts with a fresh seed on its next step
+     * @param pool pool for parallel stepping, or null to step on the calling thread
+     */
+    public VectorEnv(int size, String generator, boolean autoReset, ForkJoinPool pool) {
+        engines = new GameEngine[size];
+        for (int i = 0; i < size; ++i) {
+            engines[i] = new GameEngine(GameListener.NONE, PieceGenerator.forName(generator, 0));
+        }
+        this.autoReset = autoReset;
+        this.pool = size > GAMES_PER_CHUNK ? pool : null;
+        stepAll = this.pool == null ? null : new StepAll(size);
+        actions = new int[size];
+        grids = new byte[size * GRID_SIZE];
+        pieces = new int[size];
+        rotations = new int[size];
+        pieceXs = new int[size];
+        pieceYs = new int[size];
+        nextPieces = new int[size];
+        lines = new int[size];
+        rewards = new float[size];
+        dones = new boolean[size];
+        episodes = new int[size];
+        gridVersions = new int[size];
+    }
+
+    public int size() {
+        return engines.length;
+    }
+
+    /**
+     * Restarts every game; game {@code i} of episode {@code k} is seeded from {@code baseSeed} and
+     * {@code k * size() + i} as in {@link BatchSimulator#gameSeed(long, int)}.
+     */
+    public void reset(long baseSeed) {
+        this.baseSeed = baseSeed;
+        Arrays.fill(episodes, 0);
+        for (int i = 0; i < engines.length; ++i) {
+            reset(i, BatchSimulator.gameSeed(baseSeed, i));
+        }
+    }
+
+    /**
+     * Restarts game {@code index} with the given seed.
+     */
+    public void reset(int index, long seed) {
+        engines[index].start(seed);
+        actions[index] = NOOP;
+        rewards[index] = 0;
+        dones[index] = false;
+        gridVersions[index] = -1;
+        observe(index);
+    }
+
+    /**
+     * Applies {@link #actions()} to every game and advances each by one tick.
+     */
+    public void step() {
+        if (stepAll == null) {
+            step(0, engines.length);
+        } else {
+            stepAll.reinitialize();
+            pool.invoke(stepAll);
+        }
+    }
+
+    private void step(int from, int to) {
+        for (int i = from; i < to; ++i) {
+            GameEngine engine = engines[i];
+            if (dones[i]) {
+                if (!autoReset) {
+                    rewards[i] = 0;
+                    continue;
+                }
+                reset(i, BatchSimulator.gameSeed(baseSeed, ++episodes[i] * engines.length + i));
+            }
+            int before = engine.getLinesRemoved();
+            int action = actions[i];
+            if (action != NOOP) {
+                engine.apply(GameInput.of(action - 1));
+            }
+            engine.tick();
+            rewards[i] = engine.getLinesRemoved() - before;
+            dones[i] = !engine.isStarted();
+            observe(i);
+        }
+    }
+
+    /**
+     * Copies the state of game {@code index} into the observation arrays; the grid is only
+     * rewritten when a piece has locked since the last copy.
+     */
+    private void observe(int index) {
+        GameEngine engine = engines[index];
+        Shape piece = engine.getCurrentPiece();
+        pieces[index] = piece.getShape().ordinal();
+        rotations[index] = piece.getRotation();
+        pieceXs[index] = engine.getCurX();
+        pieceYs[index] = engine.getCurY();
+        nextPieces[index] = engine.getNextPiece().getShape().ordinal();
+        lines[index] = engine.getLinesRemoved();
+        if (gridVersions[index] == engine.getPiecesPlaced()) {
+            return;
+        }
+        gridVersions[index] = engine.getPiecesPlaced();
+        int offset = index * GRID_SIZE;
+        for (int y = 0; y < GameEngine.BOARD_HEIGHT; ++y) {
+            long row = engine.getRow(y);
+            for (int x = 0; x < GameEngine.BOARD_WIDTH; ++x) {
+                grids[offset++] = (byte) ((row >>> x) & 1);
+            }
+        }
+    }
+
+    /**
+     * Actions to apply on the next {@link #step()}, one per game.
+     */
+    public int[] actions() {
+        return actions;
+    }
+
+    public byte[] grids() {
+        return grids;
+    }
+
+    /**
+     * {@link Tetromino} ordinal of each falling piece, 0 while none is falling.
+     */
+    public int[] pieces() {
+        return pieces;
+    }
+
+    public int[] rotations() {
+        return rotations;
+    }
+
+    public int[] pieceXs() {
+        return pieceXs;
+    }
+
+    public int[] pieceYs() {
+        return pieceYs;
+    }
+
+    public int[] nextPieces() {
+        return nextPieces;
+    }
+
+    /**
+     * Total lines cleared in each game's current episode.
+     */
+    public int[] lines() {
+        return lines;
+    }
+
+    /**
+     * Lines cleared by the last step.
+     */
+    public float[] rewards() {
+        return rewards;
+    }
+
+    /**
+     * Whether the last step ended the game. With auto-reset, the next step starts a new episode.
+     */
+    public boolean[] dones() {
+        return dones;
+    }
+
+    /**
+     * Steps all games as fixed chunks; the tasks are created once and reinitialized each step.
+     */
+    private final class StepAll extends RecursiveAction {
+        private final Chunk[] chunks;
+
+        StepAll(int size) {
+            chunks = new Chunk[(size + GAMES_PER_CHUNK - 1) / GAMES_PER_CHUNK];
+            for (int c = 0; c < chunks.length; ++c) {
+                chunks[c] = new Chunk(c * GAMES_PER_CHUNK, Math.min(size, (c + 1) * GAMES_PER_CHUNK));
+            }
+        }
+
+        @Override
+        protected void compute() {
+            for (Chunk chunk : chunks) {
+                chunk.reinitialize();
+            }
+            invokeAll(chunks);
+        }
+    }
+
+    private final class Chunk extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            step(from, to);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.tetris;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Non-blocking TCP link to the other player of a versus match. It is polled from the simulation
+ * thread once per tick, so it needs no threads or locks of its own.
+ *
+ * <p>Each side sends the {@link GameStream} of its own game instead of boards; the receiver
+ * re-simulates it, which reproduces the game exactly. Attacks and ping/pong latency probes travel
+ * outside the stream. Instances are confined to the simulation thread.
+ */
+public final class VersusLink implements Closeable {
+    private static final int PING_TICKS = GameEngine.TICKS_PER_SECOND / 2;
+    private static final int RETRY_TICKS = GameEngine.TICKS_PER_SECOND;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Receives what the other player sends; called from {@link #poll()}.
+     */
+    public interface Peer {
+        void connected();
+
+        void peerStarted(long seed, String generator);
+
+        void peerInput(long tick, GameInput input);
+
+        void peerGarbage(long tick, int lines, int hole);
+
+        /**
+         * The other game has run {@code tick} ticks; inputs for that tick may still follow.
+         */
+        void peerSynced(long tick);
+
+        void attacked(int lines);
+
+        void disconnected(String reason);
+    }
+
+    private final Peer peer;
+    private final ServerSocketChannel server;
+    private final InetSocketAddress address;
+    private SocketChannel channel;
+    private boolean connected;
+    private int retryTicks;
+    private final ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+    private final ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+    private final GameStream stream = new GameStream();
+    private long receivedTick;
+    private int polls;
+    private long bytesSent;
+    private long bytesReceived;
+    private final Distribution latencyMicros = new Distribution();
+
+    private VersusLink(Peer peer, ServerSocketChannel server, InetSocketAddress address) {
+        this.peer = peer;
+        this.server = server;
+        this.address = address;
+    }
+
+    /**
+     * Waits for the other player on {@code listen:PORT}, or connects to {@code HOST:PORT} and
+     * keeps retrying until the other side is up.
+     */
+    public static VersusLink open(String spec, Peer peer) throws IOException {
+        int colon = spec.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected listen:PORT or HOST:PORT, got '" + spec + "'");
+        }
+        String host = spec.substring(0, colon);
+        int port = Integer.parseInt(spec.substring(colon + 1));
+        if (host.equals("listen")) {
+            ServerSocketChannel server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            return new VersusLink(peer, server, null);
+        }
+        return new VersusLink(peer, null, new InetSocketAddress(host, port));
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Accepts or completes the connection and hands every complete message received so far to
+     * the peer. A broken connection is reported to the peer and then reopened.
+     */
+    public void poll() {
+        try {
+            if (channel == null) {
+                open();
+            } else if (!connected && channel.finishConnect()) {
+                established();
+            }
+            if (connected) {
+                read();
+            }
+        } catch (IOException | RuntimeException e) {
+            drop(e.getMessage());
+        }
+    }
+
+    private void open() throws IOException {
+        if (server != null) {
+            SocketChannel accepted = server.accept();
+            if (accepted != null) {
+                channel = configure(accepted);
+                established();
+            }
+        } else if (retryTicks > 0) {
+            --retryTicks;
+        } else {
+            channel = configure(SocketChannel.open());
+            if (channel.connect(address)) {
+                established();
+            }
+        }
+    }
+
+    private static SocketChannel configure(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        return channel;
+    }
+
+    private void established() {
+        connected = true;
+        receivedTick = 0;
+        peer.connected();
+    }
+
+    private void drop(String reason) {
+        boolean wasConnected = connected;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // the connection is abandoned either way
+            }
+        }
+        channel = null;
+        connected = false;
+        in.clear();
+        out.clear();
+        retryTicks = RETRY_TICKS;
+        if (wasConnected) {
+            peer.disconnected(reason);
+        }
+    }
+
+    private void read() throws IOException {
+        int count;
+        while ((count = channel.read(in)) > 0) {
+            bytesReceived += count;
+        }
+        if (count < 0) {
+            throw new EOFException("connection closed");
+        }
+        in.flip();
+        while (in.hasRemaining()) {
+            in.mark();
+            try {
+                dispatch();
+            } catch (BufferUnderflowException e) {
+                in.reset();
+                break;
+            }
+        }
+        in.compact();
+    }
+
+    /**
+     * Decodes one message; a message that is not complete yet underflows before anything is
+     * handed to the peer.
+     */
+    private void dispatch() throws IOException {
+        int type = in.get();
+        switch (type) {
+            case GameStream.HELLO -> {
+                long version = VarInts.getVarLong(in);
+                long seed = in.getLong();
+                byte[] name = new byte[in.get()];
+                in.get(name);
+                if (version != GameStream.PROTOCOL_VERSION) {
+                    throw new IOException("protocol version " + version + ", expected " + GameStream.PROTOCOL_VERSION);
+                }
+                receivedTick = 0;
+                peer.peerStarted(seed, new String(name, StandardCharsets.US_ASCII));
+            }
+            case GameStream.SYNC -> peer.peerSynced(receivedTick = nextTick());
+            case GameStream.GARBAGE -> {
+                long tick = nextTick();
+                int lines = in.get();
+                int hole = in.get();
+                receivedTick = tick;
+                peer.peerGarbage(tick, lines, hole);
+            }
+            case GameStream.ATTACK -> peer.attacked(in.get());
+            case GameStream.PING -> {
+                long sent = in.getLong();
+                out.put(GameStream.PONG).putLong(sent);
+            }
+            case GameStream.PONG -> latencyMicros.record((System.nanoTime() - in.getLong()) / 2000);
+            default -> {
+                if (!GameStream.isInput(type)) {
+                    throw new IOException("unknown message type " + type);
+                }
+                peer.peerInput(receivedTick = nextTick(), GameInput.of(type - GameStream.INPUT));
+            }
+        }
+    }
+
+    private long nextTick() {
+        return receivedTick + VarInts.getVarLong(in);
+    }
+
+    public void sendHello(long seed, String generator) {
+        if (connected) {
+            stream.hello(out, seed, generator);
+        }
+    }
+
+    public void sendInput(long tick, GameInput input) {
+        if (connected) {
+            stream.input(out, tick, input);
+        }
+    }
+
+    public void sendGarbage(long tick, int lines, int hole) {
+        if (connected) {
+            stream.garbage(out, tick, lines, hole);
+        }
+    }
+
+    public void sendAttack(int lines) {
+        if (connected) {
+            out.put(GameStream.ATTACK).put((byte) lines);
+        }
+    }
+
+    /**
+     * Tells the other side that this game has run {@code tick} ticks, as when it has just ended.
+     */
+    public void sendSync(long tick) {
+        if (connected) {
+            stream.sync(out, tick);
+        }
+    }
+
+    /**
+     * Ends the tick: adds a sync when the stream has been idle, a latency probe now and then, and
+     * writes out everything queued. Call once per tick with the local game's tick count.
+     */
+    public void flush(long tick) {
+        if (!connected) {
+            return;
+        }
+        stream.syncIfIdle(out, tick);
+        if (++polls % PING_TICKS == 0) {
+            out.put(GameStream.PING).putLong(System.nanoTime());
+        }
+        try {
+            out.flip();
+            bytesSent += channel.write(out);
+            out.compact();
+            if (out.position() > BUFFER_BYTES / 2) {
+                throw new IOException("the other player is not reading");
+            }
+        } catch (IOException e) {
+            drop(e.getMessage());
+        }
+    }
+
+    /**
+     * Median one-way latency in whole ticks, from the probes since the last {@link #resetStats()}.
+     */
+    public int latencyTicks() {
+        return (int) (latencyMicros.percentile(0.5) * GameEngine.TICKS_PER_SECOND / 1_000_000);
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * One-way latency estimates, half of each probe's round trip, in microseconds.
+     */
+    public Distribution getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    public void resetStats() {
+        bytesSent = 0;
+        bytesReceived = 0;
+        latencyMicros.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Versus play against another game over a {@link VersusLink}. It sends this game's inputs and
+ * attacks, turns the opponent's attacks into garbage rows, and mirrors the opponent's game for the
+ * {@link OpponentPanel}. Runs entirely on the simulation thread.
+ *
+ * <p>The mirror keeps two engines. The confirmed one re-simulates the opponent's stream exactly, as
+ * far as it has arrived. The shown one is a copy of it run ahead without inputs by the ticks that
+ * have passed since and the measured one-way latency, so the opponent's piece keeps falling when
+ * messages are late. Whenever new events arrive the prediction is rolled back and rebuilt from the
+ * confirmed state, at the cost of a state copy and a few ticks.
+ */
+final class VersusMatch implements VersusLink.Peer {
+    /**
+     * Garbage rows sent for clearing one to four lines.
+     */
+    private static final int[] ATTACK_LINES = {0, 0, 1, 2, 4};
+    private static final int MAX_PREDICTED_TICKS = GameEngine.TICKS_PER_SECOND / 2;
+    private static final int MAX_TICK_GAP = 60 * GameEngine.TICKS_PER_SECOND;
+
+    private final GameEngine engine;
+    private final OpponentPanel view;
+    private final Runnable startGame;
+    private final Consumer<String> status;
+    private final VersusLink link;
+    private final ByteBuffer state = ByteBuffer.allocate(GameEngine.STATE_BYTES);
+    private GameEngine confirmed;
+    private GameEngine predicted;
+    private boolean confirmedChanged;
+    private int predictedTicks;
+    private int ticksSinceReceive;
+    /**
+     * Whether the opponent's current game has not been seen to end yet.
+     */
+    private boolean opponentPlaying;
+    private boolean playing;
+    private SplittableRandom holes;
+    private int pendingGarbage;
+    private long matchStartNanos;
+
+    /**
+     * @param spec {@code listen:PORT} or {@code HOST:PORT}, as for {@link VersusLink#open}
+     * @param startGame starts a new local game; called when the opponent connects or starts a game
+     *     while the local one is over
+     */
+    VersusMatch(String spec, GameEngine engine, OpponentPanel view, Runnable startGame, Consumer<String> status)
+            throws IOException {
+        this.engine = engine;
+        this.view = view;
+        this.startGame = startGame;
+        this.status = status;
+        link = VersusLink.open(spec, this);
+    }
+
+    boolean isConnected() {
+        return link.isConnected();
+    }
+
+    /**
+     * Announces a local game that has just started from {@code seed}.
+     */
+    void started(long seed) {
+        holes = new SplittableRandom(seed);
+        pendingGarbage = 0;
+        playing = true;
+        matchStartNanos = System.nanoTime();
+        link.resetStats();
+        link.sendHello(seed, engine.getGenerator().name());
+    }
+
+    void inputApplied(GameInput input) {
+        link.sendInput(engine.getTicks(), input);
+    }
+
+    /**
+     * Garbage rows an opponent receives when {@code lines} lines are cleared at once.
+     */
+    static int attackFor(int lines) {
+        return ATTACK_LINES[Math.min(lines, ATTACK_LINES.length - 1)];
+    }
+
+    void linesCleared(int lines) {
+        int attack = attackFor(lines);
+        if (attack > 0 && playing) {
+            link.sendAttack(attack);
+        }
+    }
+
+    /**
+     * Runs after every tick: exchanges messages, adds the garbage received, decides the match and
+     * shows the opponent.
+     */
+    void afterTick(long tickNanos) {
+        link.poll();
+        if (pendingGarbage > 0 && engine.isStarted()) {
+            int hole = holes.nextInt(GameEngine.BOARD_WIDTH);
+            engine.addGarbage(pendingGarbage, hole);
+            link.sendGarbage(engine.getTicks(), pendingGarbage, hole);
+            pendingGarbage = 0;
+        }
+        if (playing && !engine.isStarted()) {
+            finish(String.format("Поражение. Счёт: %d. R — реванш", engine.getLinesRemoved()));
+        } else if (playing && opponentPlaying && !confirmed.isStarted()) {
+            opponentPlaying = false;
+            engine.stop();
+            finish(String.format("Победа! Счёт: %d. R — реванш", engine.getLinesRemoved()));
+        }
+        link.flush(engine.getTicks());
+        if (predicted != null) {
+            view.publish(predict(), tickNanos);
+        }
+        ++ticksSinceReceive;
+    }
+
+    /**
+     * Ends the match with {@code result} in the status bar and reports its traffic and latency.
+     */
+    private void finish(String result) {
+        playing = false;
+        link.sendSync(engine.getTicks());
+        status.accept(result);
+        System.err.printf("versus match: %.1f s, sent %d B (%.0f B/s), received %d B (%.0f B/s), "
+                + "one-way latency (us): %s%n",
+            (System.nanoTime() - matchStartNanos) / 1e9, link.getBytesSent(), perSecond(link.getBytesSent()),
+            link.getBytesReceived(), perSecond(link.getBytesReceived()), link.getLatencyMicros());
+    }
+
+    private double perSecond(long bytes) {
+        return bytes * 1e9 / Math.max(1, System.nanoTime() - matchStartNanos);
+    }
+
+    /**
+     * Returns the confirmed opponent game run ahead to where it probably is by now.
+     */
+    private GameEngine predict() {
+        if (confirmedChanged) {
+            confirmed.saveState(state.clear());
+            predicted.loadState(state.flip());
+            predictedTicks = 0;
+            confirmedChanged = false;
+        }
+        int target = Math.min(MAX_PREDICTED_TICKS, ticksSinceReceive + link.latencyTicks());
+        while (predictedTicks < target && predicted.isStarted()) {
+            predicted.tick();
+            ++predictedTicks;
+        }
+        return predicted;
+    }
+
+    private void advanceTo(long tick) {
+        if (confirmed == null) {
+            throw new IllegalStateException("game data before hello");
+        }
+        if (tick < confirmed.getTicks() || tick - confirmed.getTicks() > MAX_TICK_GAP) {
+            throw new IllegalStateException("tick " + tick + " out of order at " + confirmed.getTicks());
+        }
+        while (confirmed.isStarted() && confirmed.getTicks() < tick) {
+            confirmed.tick();
+        }
+        confirmedChanged = true;
+        ticksSinceReceive = 0;
+    }
+
+    @Override
+    public void connected() {
+        status.accept("Соперник подключился");
+        startGame.run();
+    }
+
+    @Override
+    public void peerStarted(long seed, String generator) {
+        if (confirmed == null || !confirmed.getGenerator().name().equals(generator)) {
+            confirmed = new GameEngine(GameListener.NONE, PieceGenerator.forName(generator, seed));
+            predicted = new GameEngine(GameListener.NONE, PieceGenerator.forName(generator, seed));
+        }
+        confirmed.start(seed);
+        opponentPlaying = true;
+        advanceTo(0);
+        if (!engine.isStarted()) {
+            startGame.run();
+        }
+    }
+
+    @Override
+    public void peerInput(long tick, GameInput input) {
+        advanceTo(tick);
+        confirmed.apply(input);
+    }
+
+    @Override
+    public void peerGarbage(long tick, int lines, int hole) {
+        if (lines <= 0 || hole < 0 || hole >= GameEngine.BOARD_WIDTH) {
+            throw new IllegalStateException("bad garbage: " + lines + " lines, hole " + hole);
+        }
+        advanceTo(tick);
+        confirmed.addGarbage(lines, hole);
+    }
+
+    @Override
+    public void peerSynced(long tick) {
+        advanceTo(tick);
+    }
+
+    @Override
+    public void attacked(int lines) {
+        if (playing && lines > 0) {
+            pendingGarbage += lines;
+        }
+    }
+
+    @Override
+    public void disconnected(String reason) {
+        opponentPlaying = false;
+        if (playing) {
+            finish("Соперник отключился: " + reason);
+        } else {
+            status.accept("Соперник отключился: " + reason);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.tetris;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fixed random keys for Zobrist hashing of search positions.
+ * A board hashes to the XOR of the keys of its filled cells, so placing a piece updates the hash
+ * with four XORs; the pieces still to be placed are mixed in by their position in the sequence.
+ */
+final class Zobrist {
+    private static final int WIDTH = GameEngine.BOARD_WIDTH;
+    private static final int HEIGHT = GameEngine.BOARD_HEIGHT;
+    private static final long[] CELLS = new long[WIDTH * HEIGHT];
+    private static final long[][] PIECES = new long[PieceGenerator.LOOKAHEAD + 1][Tetromino.values().length];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5A0B_7157L);
+        for (int i = 0; i < CELLS.length; ++i) {
+            CELLS[i] = random.nextLong();
+        }
+        for (long[] keys : PIECES) {
+            for (int i = 0; i < keys.length; ++i) {
+                keys[i] = random.nextLong();
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    static long cell(int x, int y) {
+        return CELLS[y * WIDTH + x];
+    }
+
+    /**
+     * Key of {@code type} being the {@code index}-th piece still to be placed, 0 for the current one.
+     */
+    static long piece(int index, Tetromino type) {
+        return PIECES[index][type.ordinal()];
+    }
+
+    /**
+     * Hash of the filled cells of the given row bitmasks.
+     */
+    static long board(int[] rows) {
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int bits = rows[y]; bits != 0; bits &= bits - 1) {
+                hash ^= CELLS[y * WIDTH + Integer.numberOfTrailingZeros(bits)];
+            }
+        }
+        return hash;
+    }
+}